@@ -2,6 +2,7 @@ package br.com.pedrodavi.libraryapi.api;
 
 import br.com.pedrodavi.libraryapi.api.exception.ApiErrors;
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -14,6 +15,8 @@ import org.springframework.web.server.ResponseStatusException;
 @RestControllerAdvice
 public class ApplicationControllerAdvice {
 
+    private static final ResponseEntity<ApiErrors> NOT_FOUND = new ResponseEntity<>(ApiErrors.WITHOUT_MESSAGE, HttpStatus.NOT_FOUND);
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -24,12 +27,21 @@ public class ApplicationControllerAdvice {
     @ExceptionHandler(BusinessException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ApiErrors handleBusinessException(BusinessException ex){
-        return new ApiErrors(ex);
+        return ApiErrors.of(ex.getMessage());
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiErrors handleOptimisticLockingFailureException(OptimisticLockingFailureException ex){
+        return ApiErrors.CONCURRENT_MODIFICATION;
     }
 
     @ExceptionHandler(ResponseStatusException.class)
-    public ResponseEntity handleResponseStatusException(ResponseStatusException ex){
-        return new ResponseEntity(new ApiErrors(ex), ex.getStatus());
+    public ResponseEntity<ApiErrors> handleResponseStatusException(ResponseStatusException ex){
+        if (ex.getStatus() == HttpStatus.NOT_FOUND && ex.getReason() == null) {
+            return NOT_FOUND;
+        }
+        return new ResponseEntity<>(ApiErrors.of(ex.getReason()), ex.getStatus());
     }
 
 }
@@ -0,0 +1,19 @@
+package br.com.pedrodavi.libraryapi.api.converter;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Codificações binárias do Jackson aceitas além do JSON, para chamadas entre serviços.
+ * Escolhidas pelo Accept na resposta e pelo Content-Type no corpo da requisição; páginas
+ * saem no formato enxuto do CompactPageHttpMessageConverter.
+ */
+public final class BinaryFormats {
+
+    public static final String CBOR_VALUE = MediaType.APPLICATION_CBOR_VALUE;
+    public static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType SMILE = MediaType.parseMediaType(SMILE_VALUE);
+
+    private BinaryFormats() {
+    }
+}
@@ -0,0 +1,122 @@
+package br.com.pedrodavi.libraryapi.api.converter;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.LoanDTO;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Escreve páginas no formato enxuto {content, page, size, totalElements, totalPages},
+ * sem os objetos pageable/sort do PageImpl. O JSON é gerado direto no JsonGenerator;
+ * BookDTO e LoanDTO têm escrita explícita, os demais tipos caem no ObjectMapper.
+ * Ativado pelo header Accept: application/vnd.libraryapi.page+json. Com o ObjectMapper de um
+ * formato binário (CBOR, Smile) escreve o mesmo formato enxuto nessa codificação.
+ */
+public class CompactPageHttpMessageConverter extends AbstractHttpMessageConverter<Page<?>> {
+
+    public static final String COMPACT_PAGE_JSON_VALUE = "application/vnd.libraryapi.page+json";
+    public static final MediaType COMPACT_PAGE_JSON = MediaType.parseMediaType(COMPACT_PAGE_JSON_VALUE);
+
+    private final ObjectMapper objectMapper;
+
+    public CompactPageHttpMessageConverter(ObjectMapper objectMapper) {
+        this(objectMapper, COMPACT_PAGE_JSON);
+    }
+
+    public CompactPageHttpMessageConverter(ObjectMapper objectMapper, MediaType mediaType) {
+        super(mediaType);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Page<?> readInternal(Class<? extends Page<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Compact page format is write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Page<?> page, HttpOutputMessage outputMessage) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(outputMessage.getBody(), JsonEncoding.UTF8)) {
+            writePage(page, gen);
+        }
+    }
+
+    public void writePage(Page<?> page, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("content");
+        for (Object element : page.getContent()) {
+            writeElement(element, gen);
+        }
+        gen.writeEndArray();
+        gen.writeNumberField("page", page.getNumber());
+        gen.writeNumberField("size", page.getSize());
+        gen.writeNumberField("totalElements", page.getTotalElements());
+        gen.writeNumberField("totalPages", page.getTotalPages());
+        gen.writeEndObject();
+    }
+
+    private void writeElement(Object element, JsonGenerator gen) throws IOException {
+        if (element instanceof BookDTO) {
+            writeBook((BookDTO) element, gen);
+        } else if (element instanceof LoanDTO) {
+            writeLoan((LoanDTO) element, gen);
+        } else {
+            objectMapper.writeValue(gen, element);
+        }
+    }
+
+    private static void writeBook(BookDTO book, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        writeNumber(gen, "id", book.getId());
+        writeString(gen, "title", book.getTitle());
+        writeString(gen, "author", book.getAuthor());
+        writeString(gen, "isbn", book.getIsbn());
+        writeNumber(gen, "version", book.getVersion());
+        gen.writeEndObject();
+    }
+
+    private static void writeLoan(LoanDTO loan, JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        writeNumber(gen, "id", loan.getId());
+        writeString(gen, "isbn", loan.getIsbn());
+        writeString(gen, "customer", loan.getCustomer());
+        writeString(gen, "email", loan.getEmail());
+        if (loan.getBook() != null) {
+            gen.writeFieldName("book");
+            writeBook(loan.getBook(), gen);
+        }
+        writeNumber(gen, "version", loan.getVersion());
+        gen.writeEndObject();
+    }
+
+    // campos nulos são omitidos para economizar bytes
+    private static void writeString(JsonGenerator gen, String name, String value) throws IOException {
+        if (value != null) {
+            gen.writeStringField(name, value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator gen, String name, Long value) throws IOException {
+        if (value != null) {
+            gen.writeNumberField(name, value);
+        }
+    }
+}
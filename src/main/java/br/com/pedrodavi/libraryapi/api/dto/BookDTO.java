@@ -28,4 +28,6 @@ public class BookDTO {
     @NotNull
     private String isbn;
 
+    private Long version;
+
 }
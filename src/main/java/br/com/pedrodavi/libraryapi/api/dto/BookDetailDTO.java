@@ -0,0 +1,27 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookDetailDTO {
+
+    private Long id;
+    private String isbn;
+    private String title;
+    private String author;
+    private Long version;
+    private boolean available;
+    private Long currentLoanId;
+    private String currentBorrower;
+    private long loanCount;
+    private LocalDate lastLoanDate;
+
+}
@@ -0,0 +1,16 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookSuggestionDTO {
+    private String text;
+    private String type;
+    private Long bookId;
+}
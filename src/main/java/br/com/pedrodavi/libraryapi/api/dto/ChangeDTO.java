@@ -0,0 +1,21 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeDTO {
+    private Long id;
+    private String entityType;
+    private Long entityId;
+    private String operation;
+    private Long entityVersion;
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,25 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutDTO {
+
+    @NotEmpty
+    private String customer;
+    @NotEmpty
+    private String email;
+    @NotEmpty
+    private List<@NotBlank String> isbns;
+
+}
@@ -0,0 +1,23 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class CheckoutResultDTO {
+
+    public static final String LOANED = "LOANED";
+    public static final String NOT_FOUND = "NOT_FOUND";
+    public static final String ALREADY_LOANED = "ALREADY_LOANED";
+    // livro disponível, mas não emprestado porque outro do mesmo checkout falhou
+    public static final String ROLLED_BACK = "ROLLED_BACK";
+
+    private String isbn;
+    private String status;
+    private Long loanId;
+}
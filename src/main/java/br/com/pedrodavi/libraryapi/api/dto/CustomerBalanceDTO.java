@@ -0,0 +1,22 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerBalanceDTO {
+
+    private String email;
+    private BigDecimal balance;
+    private Integer overdueLoans;
+    private LocalDateTime computedAt;
+
+}
@@ -21,5 +21,6 @@ public class LoanDTO {
     @NotEmpty
     private String email;
     private BookDTO book;
+    private Long version;
 
 }
@@ -0,0 +1,24 @@
+package br.com.pedrodavi.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStatisticsDTO {
+
+    private Long totalLoans;
+    private Long activeLoans;
+    private Long overdueLoans;
+    private Map<LocalDate, Long> loansPerDay;
+    private List<TopBookDTO> topBooks;
+
+}
@@ -11,4 +11,5 @@ import lombok.NoArgsConstructor;
 @Data
 public class ReturnedLoanDTO {
     private Boolean returned;
+    private Long version;
 }
@@ -1,28 +1,51 @@
 package br.com.pedrodavi.libraryapi.api.exception;
 
-import br.com.pedrodavi.libraryapi.exception.BusinessException;
 import org.springframework.validation.BindingResult;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Corpo de erro da API. É imutável, então os corpos de mensagem única (status sem motivo,
+ * erros de negócio, conflito de versão) são reaproveitados entre requisições.
+ */
 public class ApiErrors {
 
-    private List<String> errors;
+    private static final int MAX_CACHED_MESSAGES = 256;
+    private static final ConcurrentMap<String, ApiErrors> CACHE = new ConcurrentHashMap<>();
 
-    public ApiErrors(BindingResult bindingResult) {
-        this.errors = new ArrayList<>();
-        bindingResult.getAllErrors().forEach(error -> this.errors.add(error.getDefaultMessage()));
+    public static final ApiErrors WITHOUT_MESSAGE = new ApiErrors(Collections.singletonList(null));
+    public static final ApiErrors CONCURRENT_MODIFICATION = of("Resource was modified by another request");
+
+    private final List<String> errors;
+
+    private ApiErrors(List<String> errors) {
+        this.errors = errors;
     }
 
-    public ApiErrors(BusinessException ex) {
-        this.errors = Arrays.asList(ex.getMessage());
+    public ApiErrors(BindingResult bindingResult) {
+        List<String> messages = new ArrayList<>();
+        bindingResult.getAllErrors().forEach(error -> messages.add(error.getDefaultMessage()));
+        this.errors = Collections.unmodifiableList(messages);
     }
 
-    public ApiErrors(ResponseStatusException ex) {
-        this.errors = Arrays.asList(ex.getReason());
+    public static ApiErrors of(String message) {
+        if (message == null) {
+            return WITHOUT_MESSAGE;
+        }
+        ApiErrors cached = CACHE.get(message);
+        if (cached != null) {
+            return cached;
+        }
+        ApiErrors apiErrors = new ApiErrors(Collections.singletonList(message));
+        // limite para mensagens dinâmicas não crescerem o cache sem fim
+        if (CACHE.size() < MAX_CACHED_MESSAGES) {
+            CACHE.putIfAbsent(message, apiErrors);
+        }
+        return apiErrors;
     }
 
     public List<String> getErrors() {
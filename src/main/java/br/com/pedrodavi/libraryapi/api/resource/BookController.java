@@ -1,22 +1,37 @@
 package br.com.pedrodavi.libraryapi.api.resource;
 
+import br.com.pedrodavi.libraryapi.api.converter.BinaryFormats;
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
 import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.BookDetailDTO;
+import br.com.pedrodavi.libraryapi.api.dto.BookLookupDTO;
+import br.com.pedrodavi.libraryapi.api.dto.BookLookupResultDTO;
+import br.com.pedrodavi.libraryapi.api.dto.BookSuggestionDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanDTO;
+import br.com.pedrodavi.libraryapi.api.dto.ReservationDTO;
+import br.com.pedrodavi.libraryapi.exception.NotFoundException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
 import br.com.pedrodavi.libraryapi.service.BookService;
+import br.com.pedrodavi.libraryapi.service.BookSuggestionService;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
 import br.com.pedrodavi.libraryapi.service.LoanService;
+import br.com.pedrodavi.libraryapi.service.ReservationService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @RestController
@@ -27,6 +42,9 @@ public class BookController {
     private final BookService service;
     private final ModelMapper modelMapper;
     private final LoanService loanService;
+    private final BookSuggestionService suggestionService;
+    private final ReservationService reservationService;
+    private final BookViewService bookViewService;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -40,27 +58,42 @@ public class BookController {
     public BookDTO get(@PathVariable Long id){
         return service.getById(id)
                 .map(book -> modelMapper.map(book, BookDTO.class))
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+                .orElseThrow(() -> new NotFoundException());
+    }
+
+    // livro, disponibilidade e totais de empréstimo lidos do book_view pela chave primária
+    @GetMapping("{id}/detail")
+    public BookDetailDTO detail(@PathVariable Long id){
+        return bookViewService.getById(id)
+                .map(view -> modelMapper.map(view, BookDetailDTO.class))
+                .orElseThrow(() -> new NotFoundException());
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable Long id){
-        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Book book = service.getById(id).orElseThrow(() -> new NotFoundException());
         service.delete(book);
     }
 
     @PutMapping("{id}")
-    public BookDTO update(@PathVariable Long id, BookDTO bookDTO){
+    public BookDTO update(@PathVariable Long id, @RequestBody BookDTO bookDTO){
+        if (bookDTO.getVersion() != null) {
+            // com a versão lida pelo cliente, atualiza direto no banco sem carregar o livro
+            return service.updateDetails(id, bookDTO.getTitle(), bookDTO.getAuthor(), bookDTO.getVersion())
+                    .map(book -> modelMapper.map(book, BookDTO.class))
+                    .orElseThrow(() -> new NotFoundException());
+        }
         return service.getById(id).map(book -> {
             book.setAuthor(bookDTO.getAuthor());
             book.setTitle(bookDTO.getTitle());
             book = service.update(book);
             return modelMapper.map(book, BookDTO.class);
-        }).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }).orElseThrow(() -> new NotFoundException());
     }
 
-    @GetMapping
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, CompactPageHttpMessageConverter.COMPACT_PAGE_JSON_VALUE,
+            BinaryFormats.CBOR_VALUE, BinaryFormats.SMILE_VALUE })
     public Page<BookDTO> find(BookDTO bookDTO, Pageable pageRequest){
         Book filter = modelMapper.map(bookDTO, Book.class);
         Page<Book> result = service.find(filter, pageRequest);
@@ -71,9 +104,34 @@ public class BookController {
         return new PageImpl<>(list, pageRequest, result.getTotalElements());
     }
 
-    @GetMapping("{id}/loans")
+    // o Swagger 2 só descreve um GET por caminho: fica documentado o find, e o lookup pelo POST
+    @ApiIgnore
+    @GetMapping(params = "ids")
+    public List<BookLookupResultDTO> getByIds(@RequestParam List<Long> ids){
+        return toLookupResults(ids, service.getByIds(ids), null);
+    }
+
+    @PostMapping("lookup")
+    public List<BookLookupResultDTO> lookup(@RequestBody BookLookupDTO lookupDTO){
+        List<BookLookupResultDTO> results = new ArrayList<>();
+        if (lookupDTO.getIds() != null) {
+            results.addAll(toLookupResults(lookupDTO.getIds(), service.getByIds(lookupDTO.getIds()), null));
+        }
+        if (lookupDTO.getIsbns() != null) {
+            results.addAll(toLookupResults(null, service.getByIsbns(lookupDTO.getIsbns()), lookupDTO.getIsbns()));
+        }
+        return results;
+    }
+
+    @GetMapping("suggest")
+    public List<BookSuggestionDTO> suggest(@RequestParam String q, @RequestParam(defaultValue = "10") int limit){
+        return suggestionService.suggest(q, limit);
+    }
+
+    @GetMapping(value = "{id}/loans", produces = { MediaType.APPLICATION_JSON_VALUE, CompactPageHttpMessageConverter.COMPACT_PAGE_JSON_VALUE,
+            BinaryFormats.CBOR_VALUE, BinaryFormats.SMILE_VALUE })
     public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
-        Book book = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Book book = service.getById(id).orElseThrow(() -> new NotFoundException());
         Page<Loan> result = loanService.getLoansByBook(book, pageable);
         List<LoanDTO> list = result.getContent().stream().map(loan -> {
             Book loanBook = loan.getBook();
@@ -85,4 +143,33 @@ public class BookController {
         return new PageImpl<>(list, pageable, result.getTotalElements());
     }
 
+    // entra na fila do livro emprestado em vez de tentar o empréstimo até ele ser devolvido
+    @PostMapping("{id}/reservations")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ReservationDTO reserve(@PathVariable Long id, @RequestBody @Valid ReservationDTO reservationDTO){
+        Book book = service.getById(id).orElseThrow(() -> new NotFoundException());
+        Reservation reservation = reservationService.reserve(Reservation.builder()
+                .book(book)
+                .customer(reservationDTO.getCustomer())
+                .email(reservationDTO.getEmail())
+                .build());
+        ReservationDTO result = modelMapper.map(reservation, ReservationDTO.class);
+        result.setPosition(reservationService.getPosition(reservation));
+        return result;
+    }
+
+    private List<BookLookupResultDTO> toLookupResults(List<Long> ids, List<Optional<Book>> books, List<String> isbns) {
+        List<BookLookupResultDTO> results = new ArrayList<>(books.size());
+        for (int i = 0; i < books.size(); i++) {
+            Optional<Book> book = books.get(i);
+            results.add(BookLookupResultDTO.builder()
+                    .id(ids != null ? ids.get(i) : null)
+                    .isbn(isbns != null ? isbns.get(i) : null)
+                    .found(book.isPresent())
+                    .book(book.map(b -> modelMapper.map(b, BookDTO.class)).orElse(null))
+                    .build());
+        }
+        return results;
+    }
+
 }
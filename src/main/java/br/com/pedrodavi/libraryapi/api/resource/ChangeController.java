@@ -0,0 +1,161 @@
+package br.com.pedrodavi.libraryapi.api.resource;
+
+import br.com.pedrodavi.libraryapi.api.dto.ChangeDTO;
+import br.com.pedrodavi.libraryapi.config.TenantContext;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/changes")
+public class ChangeController {
+
+    public static final int MAX_CHANGES = 500;
+
+    private final ChangeFeedService service;
+    private final Duration pollTimeout;
+    private final Duration streamTimeout;
+    // envios SSE fora da thread do notificador do feed: um cliente lento não atrasa os outros
+    private final ExecutorService streamSender;
+
+    public ChangeController(ChangeFeedService service,
+                            @Value("${application.changes.poll-timeout:30s}") Duration pollTimeout,
+                            @Value("${application.changes.stream-timeout:30m}") Duration streamTimeout,
+                            @Value("${application.changes.stream-threads:8}") int streamThreads) {
+        this.service = service;
+        this.pollTimeout = pollTimeout;
+        this.streamTimeout = streamTimeout;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.streamSender = Executors.newFixedThreadPool(streamThreads, runnable -> {
+            Thread thread = new Thread(runnable, "change-stream-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamSender.shutdownNow();
+    }
+
+    // long-poll: responde na hora se já houver mudanças depois de "since", senão espera a próxima
+    @GetMapping
+    public DeferredResult<List<ChangeDTO>> poll(@RequestParam(defaultValue = "0") long since,
+                                                @RequestParam(defaultValue = "100") int limit){
+        int max = Math.min(Math.max(limit, 1), MAX_CHANGES);
+        DeferredResult<List<ChangeDTO>> result = new DeferredResult<>(pollTimeout.toMillis());
+        List<ChangeDTO> changes = changes(since, max);
+        if (!changes.isEmpty()) {
+            result.setResult(changes);
+            return result;
+        }
+        Runnable listener = () -> {
+            List<ChangeDTO> newChanges = changes(since, max);
+            if (!newChanges.isEmpty()) {
+                result.setResult(newChanges);
+            }
+        };
+        // o timeout é tratado em outra thread, fora do TenantFilter
+        result.onTimeout(TenantContext.wrap(() -> result.setResult(changes(since, max))));
+        result.onCompletion(() -> service.removeListener(listener));
+        service.addListener(listener);
+        listener.run(); // cobre mudanças feitas entre a primeira consulta e o registro do ouvinte
+        return result;
+    }
+
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Long since,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId){
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        StreamClient client = new StreamClient(emitter, lastEventId != null ? lastEventId : since != null ? since : 0);
+        // o notificador só agenda o envio; quem escreve no emitter é a thread do cliente
+        Runnable listener = client::wakeUp;
+        emitter.onCompletion(() -> service.removeListener(listener));
+        emitter.onTimeout(() -> service.removeListener(listener));
+        emitter.onError(error -> service.removeListener(listener));
+        client.pending.set(1);
+        service.addListener(listener);
+        client.drain(); // carga inicial na thread da requisição, junto com o que chegar enquanto isso
+        return emitter;
+    }
+
+    /**
+     * Um cliente SSE: no máximo uma tarefa de envio por vez, para a posição avançar na ordem
+     * da sequência. Avisos que chegam durante um envio só contam em pending e são cobertos
+     * pela próxima volta da mesma tarefa.
+     */
+    private class StreamClient {
+
+        private final SseEmitter emitter;
+        private final AtomicLong position;
+        private final AtomicInteger pending = new AtomicInteger();
+
+        StreamClient(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = new AtomicLong(position);
+        }
+
+        void wakeUp() {
+            if (pending.getAndIncrement() == 0) {
+                streamSender.execute(TenantContext.wrap(this::drain));
+            }
+        }
+
+        void drain() {
+            int seen;
+            do {
+                seen = pending.get();
+                if (!send()) {
+                    return; // emitter encerrado: pending fica positivo e nada mais é agendado
+                }
+            } while (pending.addAndGet(-seen) != 0);
+        }
+
+        private boolean send() {
+            List<ChangeDTO> changes;
+            do {
+                changes = changes(position.get(), MAX_CHANGES);
+                for (ChangeDTO change : changes) {
+                    try {
+                        emitter.send(SseEmitter.event().id(String.valueOf(change.getId())).name("change").data(change));
+                    } catch (IOException | IllegalStateException e) {
+                        emitter.completeWithError(e);
+                        return false;
+                    }
+                    position.set(change.getId());
+                }
+            } while (changes.size() == MAX_CHANGES);
+            return true;
+        }
+    }
+
+    private List<ChangeDTO> changes(long since, int limit) {
+        return service.getChanges(since, limit).stream().map(this::toDTO).collect(Collectors.toList());
+    }
+
+    private ChangeDTO toDTO(ChangeLog change) {
+        return ChangeDTO.builder()
+                .id(change.getId())
+                .entityType(change.getEntityType().name())
+                .entityId(change.getEntityId())
+                .operation(change.getOperation().name())
+                .entityVersion(change.getEntityVersion())
+                .changedAt(change.getChangedAt())
+                .build();
+    }
+
+}
@@ -0,0 +1,55 @@
+package br.com.pedrodavi.libraryapi.api.resource;
+
+import br.com.pedrodavi.libraryapi.api.converter.BinaryFormats;
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
+import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.CustomerBalanceDTO;
+import br.com.pedrodavi.libraryapi.api.dto.LoanDTO;
+import br.com.pedrodavi.libraryapi.exception.NotFoundException;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.service.CustomerService;
+import br.com.pedrodavi.libraryapi.service.FineService;
+import br.com.pedrodavi.libraryapi.service.LoanService;
+import lombok.RequiredArgsConstructor;
+import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/customers")
+@RequiredArgsConstructor
+public class CustomerController {
+
+    private final CustomerService service;
+    private final LoanService loanService;
+    private final FineService fineService;
+    private final ModelMapper modelMapper;
+
+    @GetMapping(value = "{id}/loans", produces = { MediaType.APPLICATION_JSON_VALUE, CompactPageHttpMessageConverter.COMPACT_PAGE_JSON_VALUE,
+            BinaryFormats.CBOR_VALUE, BinaryFormats.SMILE_VALUE })
+    public Page<LoanDTO> loansByCustomer(@PathVariable Long id, Pageable pageable){
+        Customer customer = service.getById(id).orElseThrow(() -> new NotFoundException());
+        Page<Loan> result = loanService.getLoansByCustomer(customer, pageable);
+        List<LoanDTO> list = result.getContent().stream().map(loan -> {
+            BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+            LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+            loanDTO.setBook(bookDTO);
+            return loanDTO;
+        }).collect(Collectors.toList());
+        return new PageImpl<>(list, pageable, result.getTotalElements());
+    }
+
+    // saldo do último cálculo em lote das multas; cliente sem atraso tem saldo zero
+    @GetMapping("{email}/balance")
+    public CustomerBalanceDTO balance(@PathVariable String email){
+        return fineService.getBalance(email);
+    }
+
+}
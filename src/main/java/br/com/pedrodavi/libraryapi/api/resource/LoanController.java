@@ -1,10 +1,17 @@
 package br.com.pedrodavi.libraryapi.api.resource;
 
+import br.com.pedrodavi.libraryapi.api.converter.BinaryFormats;
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
 import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutDTO;
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutResultDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanFilterDTO;
 import br.com.pedrodavi.libraryapi.api.dto.ReturnedLoanDTO;
 import br.com.pedrodavi.libraryapi.api.exception.ApiErrors;
+import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import br.com.pedrodavi.libraryapi.exception.CheckoutException;
+import br.com.pedrodavi.libraryapi.exception.NotFoundException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
 import br.com.pedrodavi.libraryapi.service.BookService;
@@ -15,11 +22,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
 
+import javax.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -39,11 +47,12 @@ public class LoanController {
 
         Book book = bookService
                 .getBookByIsbn(loanDTO.getIsbn())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Book not found for passed Isbn"));
+                .orElseThrow(() -> new BusinessException("Book not found for passed Isbn"));
 
         Loan entity = Loan.builder()
                 .book(book)
                 .customer(loanDTO.getCustomer())
+                .email(loanDTO.getEmail())
                 .loanDate(LocalDate.now())
                 .build();
 
@@ -51,15 +60,23 @@ public class LoanController {
         return entity.getId();
     }
 
+    // vários livros para o mesmo cliente: todos são emprestados ou nenhum
+    @PostMapping("checkout")
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<CheckoutResultDTO> checkout(@RequestBody @Valid CheckoutDTO checkoutDTO){
+        return service.checkout(checkoutDTO.getCustomer(), checkoutDTO.getEmail(), checkoutDTO.getIsbns());
+    }
+
     @PatchMapping("{id}")
     public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO returnedLoanDTO){
-        Loan loan = service.getById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-        loan.setReturned(returnedLoanDTO.getReturned());
-        service.update(loan);
+        // update direto no banco, sem carregar o empréstimo antes
+        if (!service.updateReturned(id, returnedLoanDTO.getReturned(), returnedLoanDTO.getVersion())) {
+            throw new NotFoundException();
+        }
     }
 
-    @GetMapping
+    @GetMapping(produces = { MediaType.APPLICATION_JSON_VALUE, CompactPageHttpMessageConverter.COMPACT_PAGE_JSON_VALUE,
+            BinaryFormats.CBOR_VALUE, BinaryFormats.SMILE_VALUE })
     public Page<LoanDTO> find(LoanFilterDTO loanFilterDTO, Pageable pageRequest){
         Page<Loan> result = service.find(loanFilterDTO, pageRequest);
         List<LoanDTO> list = result.getContent().stream().map(entity -> {
@@ -79,4 +96,10 @@ public class LoanController {
         return new ApiErrors(bindingResult);
     }
 
+    @ExceptionHandler(CheckoutException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public List<CheckoutResultDTO> handleCheckoutException(CheckoutException ex) {
+        return ex.getResults();
+    }
+
 }
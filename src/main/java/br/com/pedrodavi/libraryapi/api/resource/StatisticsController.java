@@ -0,0 +1,22 @@
+package br.com.pedrodavi.libraryapi.api.resource;
+
+import br.com.pedrodavi.libraryapi.api.dto.LoanStatisticsDTO;
+import br.com.pedrodavi.libraryapi.service.LoanStatisticsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+public class StatisticsController {
+
+    private final LoanStatisticsService service;
+
+    @GetMapping
+    public LoanStatisticsDTO get(){
+        return service.getStatistics();
+    }
+
+}
@@ -0,0 +1,63 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.time.Duration;
+
+/**
+ * Ativado quando application.datasource.replica.jdbc-url está configurado: o primário continua
+ * vindo de spring.datasource.* e a réplica de application.datasource.replica.* (propriedades do Hikari).
+ * Os dois pools não são beans próprios para não disparar a inicialização do schema neles.
+ */
+@Configuration
+@ConditionalOnProperty("application.datasource.replica.jdbc-url")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("application.datasource.replica")
+    public HikariConfig replicaHikariConfig() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("replica");
+        config.setReadOnly(true);
+        return config;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, HikariConfig replicaHikariConfig,
+                                 @Value("${application.datasource.replica.lag-tolerance:2s}") Duration lagTolerance) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        HikariDataSource replica = new HikariDataSource(replicaHikariConfig);
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, lagTolerance);
+        routing.afterPropertiesSet();
+        return new LazyRoutingDataSource(routing, primary, replica);
+    }
+
+    static class LazyRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+        private final HikariDataSource primary;
+        private final HikariDataSource replica;
+
+        LazyRoutingDataSource(DataSource routing, HikariDataSource primary, HikariDataSource replica) {
+            super(routing);
+            this.primary = primary;
+            this.replica = replica;
+        }
+
+        @Override
+        public void close() {
+            replica.close();
+            primary.close();
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Envia transações somente leitura para a réplica e o resto para o primário.
+ * Para o cliente ler o que acabou de escrever, toda escrita grava o cookie LAST_WRITE_COOKIE;
+ * enquanto ele for mais novo que a tolerância de atraso da réplica, as leituras daquele
+ * cliente continuam no primário.
+ * Precisa ficar atrás de um LazyConnectionDataSourceProxy, porque o flag read-only da
+ * transação só é definido depois que o gerenciador de transação pede a conexão.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String LAST_WRITE_COOKIE = "lib-last-write";
+
+    enum Route { PRIMARY, REPLICA }
+
+    private final Duration lagTolerance;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration lagTolerance) {
+        this.lagTolerance = lagTolerance;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        ServletRequestAttributes attributes = currentRequest();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            markWrite(attributes);
+            return Route.PRIMARY;
+        }
+        return wroteRecently(attributes) ? Route.PRIMARY : Route.REPLICA;
+    }
+
+    private void markWrite(ServletRequestAttributes attributes) {
+        HttpServletResponse response = attributes == null ? null : attributes.getResponse();
+        if (response == null || response.isCommitted()) {
+            return;
+        }
+        Cookie cookie = new Cookie(LAST_WRITE_COOKIE, String.valueOf(System.currentTimeMillis()));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, lagTolerance.toSeconds()));
+        response.addCookie(cookie);
+    }
+
+    private boolean wroteRecently(ServletRequestAttributes attributes) {
+        if (attributes == null) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    return System.currentTimeMillis() - Long.parseLong(cookie.getValue()) < lagTolerance.toMillis();
+                } catch (NumberFormatException ex) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static ServletRequestAttributes currentRequest() {
+        return RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes
+                ? (ServletRequestAttributes) RequestContextHolder.getRequestAttributes() : null;
+    }
+}
@@ -0,0 +1,32 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import br.com.pedrodavi.libraryapi.service.ScheduledService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    // ordem dos listeners de ApplicationReadyEvent: primeiro os estados em memória, depois o aquecimento
+    public static final int RECONCILE_ORDER = 0;
+    public static final int WARM_UP_ORDER = 100;
+
+    // com spring.main.lazy-initialization, beans com @Scheduled precisam subir mesmo sem ninguém injetá-los
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ScheduledService.class);
+    }
+
+    // execução de treino do arquivo CDS: sobe a aplicação, carrega as classes e encerra
+    @Bean
+    @ConditionalOnProperty("application.startup.exit-on-ready")
+    public ApplicationListener<ApplicationReadyEvent> exitOnReady() {
+        return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+
+}
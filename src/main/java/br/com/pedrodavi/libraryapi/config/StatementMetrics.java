@@ -0,0 +1,48 @@
+package br.com.pedrodavi.libraryapi.config;
+
+/**
+ * Contadores de comandos SQL e tempo de banco da thread atual, alimentados pelo
+ * StatementMetricsDataSource. Só crescem: quem mede (requisição, teste) guarda um snapshot
+ * no início e calcula a diferença no fim, o que permite medições aninhadas.
+ */
+public final class StatementMetrics {
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private StatementMetrics() {
+    }
+
+    public static Snapshot snapshot() {
+        long[] counters = COUNTERS.get();
+        return new Snapshot(counters[0], counters[1]);
+    }
+
+    static void record(long nanos) {
+        long[] counters = COUNTERS.get();
+        counters[0]++;
+        counters[1] += nanos;
+    }
+
+    public static final class Snapshot {
+
+        private final long statements;
+        private final long nanos;
+
+        private Snapshot(long statements, long nanos) {
+            this.statements = statements;
+            this.nanos = nanos;
+        }
+
+        public Snapshot since(Snapshot before) {
+            return new Snapshot(statements - before.statements, nanos - before.nanos);
+        }
+
+        public long getStatements() {
+            return statements;
+        }
+
+        public double getMillis() {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class StatementMetricsConfig {
+
+    // envolve o DataSource já configurado (pool, réplica), então mede também os comandos da inicialização
+    @Bean
+    public static BeanPostProcessor statementMetricsDataSourcePostProcessor(
+            @Value("${application.jdbc.slow-query-threshold:200ms}") Duration slowQueryThreshold) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof StatementMetricsDataSource)) {
+                    return new StatementMetricsDataSource((DataSource) bean, slowQueryThreshold);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public StatementMetricsFilter statementMetricsFilter(@Value("${application.jdbc.metrics-headers:true}") boolean exposeHeaders) {
+        return new StatementMetricsFilter(exposeHeaders);
+    }
+
+}
@@ -0,0 +1,115 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mede cada comando SQL executado pelas conexões do pool: conta e soma o tempo em
+ * StatementMetrics e registra em log, com os parâmetros, os que passarem do limite de
+ * consulta lenta. Repassa o close ao pool para o Spring encerrá-lo no shutdown.
+ */
+@Slf4j
+public class StatementMetricsDataSource extends DelegatingDataSource implements Closeable {
+
+    private final long slowQueryNanos;
+
+    public StatementMetricsDataSource(DataSource target, Duration slowQueryThreshold) {
+        super(target);
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        DataSource target = getTargetDataSource();
+        if (target instanceof Closeable) {
+            ((Closeable) target).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement && method.getName().startsWith("prepare")) {
+                        return wrap((Statement) result, (String) args[0]);
+                    }
+                    if (result instanceof Statement) {
+                        return wrap((Statement) result, null);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrap(Statement statement, String preparedSql) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type },
+                new StatementHandler(statement, preparedSql));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+
+        private StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters.clear();
+            }
+            if (!name.startsWith("execute")) {
+                return StatementMetricsDataSource.invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return StatementMetricsDataSource.invoke(statement, method, args);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                StatementMetrics.record(elapsed);
+                if (elapsed >= slowQueryNanos) {
+                    String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? String.valueOf(args[0]) : "batch";
+                    log.warn("Consulta lenta ({} ms): {} parâmetros {}", String.format("%.1f", elapsed / 1e6), sql, parameters.values());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Quantidade de comandos SQL e tempo de banco por requisição, no log de debug e, fora de
+ * produção, nos headers da resposta. Os headers vão quando a resposta começa a ser escrita;
+ * consultas feitas durante a serialização (lazy loading) só aparecem no log.
+ */
+@Slf4j
+public class StatementMetricsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-Db-Statements";
+    public static final String TIME_HEADER = "X-Db-Time-Ms";
+
+    private final boolean exposeHeaders;
+
+    public StatementMetricsFilter(boolean exposeHeaders) {
+        this.exposeHeaders = exposeHeaders;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        StatementMetrics.Snapshot before = StatementMetrics.snapshot();
+        MetricsResponse metricsResponse = exposeHeaders ? new MetricsResponse(response, before) : null;
+        try {
+            chain.doFilter(request, metricsResponse != null ? metricsResponse : response);
+        } finally {
+            if (metricsResponse != null) {
+                metricsResponse.writeHeaders();
+            }
+            StatementMetrics.Snapshot used = StatementMetrics.snapshot().since(before);
+            if (used.getStatements() > 0 && log.isDebugEnabled()) {
+                log.debug("{} {}: {} comandos SQL, {} ms", request.getMethod(), request.getRequestURI(),
+                        used.getStatements(), String.format(Locale.ROOT, "%.1f", used.getMillis()));
+            }
+        }
+    }
+
+    private static class MetricsResponse extends HttpServletResponseWrapper {
+
+        private final StatementMetrics.Snapshot before;
+        private boolean written;
+
+        private MetricsResponse(HttpServletResponse response, StatementMetrics.Snapshot before) {
+            super(response);
+            this.before = before;
+        }
+
+        void writeHeaders() {
+            if (written || isCommitted()) {
+                return;
+            }
+            written = true;
+            StatementMetrics.Snapshot used = StatementMetrics.snapshot().since(before);
+            setHeader(STATEMENTS_HEADER, String.valueOf(used.getStatements()));
+            setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.1f", used.getMillis()));
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            writeHeaders();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            writeHeaders();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeaders();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            writeHeaders();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            writeHeaders();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            writeHeaders();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serve a especificação Swagger pré-gerada (api-docs/swagger.json) no lugar do springfox,
+ * evitando o scan das controllers na subida. Para regerar o arquivo:
+ * mvn test -Dtest=ApiDocsTest -DgenerateApiDocs=true
+ */
+@RestController
+@Profile("prod")
+public class StaticApiDocsController {
+
+    static final String API_DOCS = "/v2/api-docs";
+
+    private final Resource apiDocs = new ClassPathResource("api-docs/swagger.json");
+
+    @GetMapping(value = API_DOCS, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Resource> apiDocs() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(apiDocs);
+    }
+
+    // usado pelo swagger-ui para descobrir onde está a especificação
+    @GetMapping("/swagger-resources")
+    public List<Map<String, String>> swaggerResources() {
+        return Collections.singletonList(Map.of(
+                "name", "default",
+                "url", API_DOCS,
+                "location", API_DOCS,
+                "swaggerVersion", "2.0"));
+    }
+
+}
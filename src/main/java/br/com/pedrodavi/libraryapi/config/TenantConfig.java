@@ -0,0 +1,63 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-tenant com um banco por biblioteca. Os tenants de application.tenants.ids usam o
+ * DataSource de application.tenants.datasources.{tenant}.* (propriedades do Hikari); o tenant
+ * padrão continua em spring.datasource.*. Não combina com a réplica de leitura (ReadReplicaConfig).
+ */
+@Configuration
+public class TenantConfig {
+
+    @Bean
+    public Tenants tenants(@Value("${application.tenants.ids:}") List<String> tenantIds) {
+        return new Tenants(tenantIds);
+    }
+
+    @Bean
+    public TenantFilter tenantFilter(Tenants tenants) {
+        return new TenantFilter(tenants);
+    }
+
+    @Bean
+    @ConditionalOnProperty("application.tenants.ids")
+    public DataSource dataSource(DataSourceProperties properties, Tenants tenants, Environment environment,
+                                 @Value("${application.tenants.schema:classpath:schema-prod.sql}") Resource schema) {
+        Binder binder = Binder.get(environment);
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        dataSources.put(TenantContext.DEFAULT_TENANT, properties.initializeDataSourceBuilder().type(HikariDataSource.class).build());
+        for (String tenantId : tenants.getIds()) {
+            if (TenantContext.DEFAULT_TENANT.equals(tenantId)) {
+                continue;
+            }
+            HikariConfig config = binder.bind("application.tenants.datasources." + tenantId, HikariConfig.class)
+                    .orElseThrow(() -> new IllegalStateException("No datasource configured for tenant " + tenantId));
+            config.setPoolName("tenant-" + tenantId);
+            HikariDataSource dataSource = new HikariDataSource(config);
+            // a inicialização do Spring/Hibernate só cria o schema no banco do tenant padrão
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(schema), dataSource);
+            dataSources.put(tenantId, dataSource);
+        }
+        TenantRoutingDataSource routing = new TenantRoutingDataSource(dataSources);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+}
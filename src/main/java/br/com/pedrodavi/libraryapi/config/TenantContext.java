@@ -0,0 +1,49 @@
+package br.com.pedrodavi.libraryapi.config;
+
+/**
+ * Tenant (biblioteca) da thread atual. Nas requisições vem do TenantFilter; nos jobs e na
+ * inicialização, de Tenants.forEach. Sem tenant definido vale o DEFAULT_TENANT, que usa o
+ * DataSource de spring.datasource.*.
+ */
+public final class TenantContext {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    public static String getTenantId() {
+        String tenantId = CURRENT.get();
+        return tenantId != null ? tenantId : DEFAULT_TENANT;
+    }
+
+    public static void setTenantId(String tenantId) {
+        CURRENT.set(tenantId);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void runAs(String tenantId, Runnable task) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenantId);
+        try {
+            task.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    // para tarefas que rodam em outra thread, como os ouvintes do feed de mudanças
+    public static Runnable wrap(Runnable task) {
+        String tenantId = getTenantId();
+        return () -> runAs(tenantId, task);
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// tenant da requisição pelo header TENANT_HEADER; sem o header a requisição vai para o DEFAULT_TENANT
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    private final Tenants tenants;
+
+    public TenantFilter(Tenants tenants) {
+        this.tenants = tenants;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String tenantId = request.getHeader(TENANT_HEADER);
+        if (tenantId == null || tenantId.isBlank()) {
+            tenantId = TenantContext.DEFAULT_TENANT;
+        } else if (!tenants.contains(tenantId)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown tenant");
+            return;
+        }
+        TenantContext.setTenantId(tenantId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.clear();
+        }
+    }
+
+    // o resultado de DeferredResult/SseEmitter é despachado de novo, em outra thread
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+}
@@ -0,0 +1,37 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Um banco por tenant: a conexão vem do DataSource do tenant da thread (TenantContext).
+ * Os repositórios e o EntityManager são os mesmos para todos os tenants.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private final Map<String, DataSource> dataSources;
+
+    public TenantRoutingDataSource(Map<String, DataSource> dataSources) {
+        this.dataSources = dataSources;
+        setTargetDataSources(new HashMap<>(dataSources));
+        setDefaultTargetDataSource(dataSources.get(TenantContext.DEFAULT_TENANT));
+        setLenientFallback(false); // tenant sem banco é erro, não o banco padrão
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TenantContext.getTenantId();
+    }
+
+    @Override
+    public void close() {
+        dataSources.values().stream()
+                .filter(HikariDataSource.class::isInstance)
+                .forEach(dataSource -> ((HikariDataSource) dataSource).close());
+    }
+}
@@ -0,0 +1,57 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tenants atendidos pela aplicação: o DEFAULT_TENANT mais os de application.tenants.ids.
+ * forEach executa uma tarefa em cada um deles (jobs agendados, reconciliação na subida);
+ * a falha de um tenant não impede os demais e é relançada no fim.
+ */
+@Slf4j
+public class Tenants {
+
+    private final List<String> ids;
+
+    public Tenants(List<String> tenantIds) {
+        List<String> all = new ArrayList<>();
+        all.add(TenantContext.DEFAULT_TENANT);
+        for (String tenantId : tenantIds) {
+            String id = tenantId.trim();
+            if (!id.isEmpty() && !all.contains(id)) {
+                all.add(id);
+            }
+        }
+        this.ids = Collections.unmodifiableList(all);
+    }
+
+    public static Tenants single() {
+        return new Tenants(Collections.emptyList());
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public boolean contains(String tenantId) {
+        return ids.contains(tenantId);
+    }
+
+    public void forEach(Runnable task) {
+        RuntimeException failure = null;
+        for (String tenantId : ids) {
+            try {
+                TenantContext.runAs(tenantId, task);
+            } catch (RuntimeException e) {
+                log.warn("Falha ao executar tarefa no tenant {}", tenantId, e);
+                failure = failure == null ? e : failure;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
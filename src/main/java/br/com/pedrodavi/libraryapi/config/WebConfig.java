@@ -0,0 +1,41 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import br.com.pedrodavi.libraryapi.api.converter.BinaryFormats;
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // CBOR e Smile com as mesmas configurações (spring.jackson.*) do JSON, no lugar dos conversores padrão
+        ObjectMapper cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+        ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+        converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+                || converter instanceof MappingJackson2SmileHttpMessageConverter);
+        converters.add(new MappingJackson2CborHttpMessageConverter(cborMapper));
+        converters.add(new MappingJackson2SmileHttpMessageConverter(smileMapper));
+
+        // antes do Jackson, que também aceitaria application/*+json; nos binários, antes do PageImpl completo
+        converters.add(0, new CompactPageHttpMessageConverter(objectMapper));
+        converters.add(1, new CompactPageHttpMessageConverter(cborMapper, BinaryFormats.CBOR));
+        converters.add(2, new CompactPageHttpMessageConverter(smileMapper, BinaryFormats.SMILE));
+    }
+
+}
@@ -2,7 +2,8 @@ package br.com.pedrodavi.libraryapi.exception;
 
 public class BusinessException extends RuntimeException {
 
+    // erro de regra de negócio vira resposta 400, não é falha: sem pilha e sem suppressed
     public BusinessException(String s) {
-        super(s);
+        super(s, null, false, false);
     }
 }
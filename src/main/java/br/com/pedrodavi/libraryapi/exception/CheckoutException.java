@@ -0,0 +1,20 @@
+package br.com.pedrodavi.libraryapi.exception;
+
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutResultDTO;
+
+import java.util.List;
+
+// checkout recusado: nenhum empréstimo foi gravado, o resultado diz o motivo de cada Isbn
+public class CheckoutException extends BusinessException {
+
+    private final List<CheckoutResultDTO> results;
+
+    public CheckoutException(List<CheckoutResultDTO> results) {
+        super("Book unavailable for checkout");
+        this.results = results;
+    }
+
+    public List<CheckoutResultDTO> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,20 @@
+package br.com.pedrodavi.libraryapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 404 sem captura da pilha: recurso inexistente é fluxo normal da API (ids apagados, crawlers),
+ * e a pilha nunca é usada, já que o ApplicationControllerAdvice só devolve o status.
+ */
+public class NotFoundException extends ResponseStatusException {
+
+    public NotFoundException() {
+        super(HttpStatus.NOT_FOUND);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -1,9 +1,7 @@
 package br.com.pedrodavi.libraryapi.model.entity;
 
-import lombok.AllArgsConstructor;
-import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import javax.persistence.*;
 import java.util.List;
@@ -14,6 +12,8 @@ import java.util.List;
 @AllArgsConstructor
 @Entity
 @Table
+// as consultas nativas de empréstimos não fazem join com book: os livros da página vêm num só select
+@BatchSize(size = 100)
 public class Book {
 
     @Id
@@ -30,6 +30,13 @@ public class Book {
     @Column
     private String isbn;
 
+    @Version
+    @Column
+    private Long version;
+
+    // fora de equals/hashCode/toString: senão o @Data carrega a coleção inteira ao comparar ou logar o livro
     @OneToMany(mappedBy = "book")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Loan> loans;
 }
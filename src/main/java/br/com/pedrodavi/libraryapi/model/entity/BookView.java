@@ -0,0 +1,54 @@
+package br.com.pedrodavi.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+// detalhe do livro já montado (dados, empréstimo atual e totais), lido pelo id em um único select;
+// atualizado pelos serviços na mesma transação que grava o livro ou o empréstimo
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table
+public class BookView {
+
+    // o mesmo id do livro
+    @Id
+    @Column
+    private Long id;
+
+    @Column
+    private String isbn;
+
+    @Column
+    private String title;
+
+    @Column
+    private String author;
+
+    @Column
+    private Long version;
+
+    @Column
+    private Long currentLoanId;
+
+    @Column(length = 100)
+    private String currentBorrower;
+
+    @Column
+    private long loanCount;
+
+    @Column
+    private LocalDate lastLoanDate;
+
+    public boolean isAvailable() {
+        return currentLoanId == null;
+    }
+
+}
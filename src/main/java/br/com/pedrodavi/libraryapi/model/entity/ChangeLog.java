@@ -0,0 +1,48 @@
+package br.com.pedrodavi.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Alteração de livro ou empréstimo, gravada na mesma transação da alteração. O id é a
+ * sequência do feed de mudanças.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "change_log", indexes = @Index(name = "idx_change_log_changed_at", columnList = "changed_at"))
+public class ChangeLog {
+
+    public enum EntityType { BOOK, LOAN }
+
+    public enum Operation { CREATED, UPDATED, DELETED }
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_type", length = 10, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(length = 10, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Operation operation;
+
+    @Column(name = "entity_version")
+    private Long entityVersion;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -13,6 +13,7 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = @Index(name = "idx_loan_customer", columnList = "customer_id"))
 public class Loan {
 
     @Id
@@ -26,6 +27,10 @@ public class Loan {
     @Column
     private String email;
 
+    @JoinColumn(name = "customer_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Customer customerAccount;
+
     @JoinColumn(name = "id_book")
     @ManyToOne
     private Book book;
@@ -36,4 +41,8 @@ public class Loan {
     @Column
     private Boolean returned;
 
+    @Version
+    @Column
+    private Long version;
+
 }
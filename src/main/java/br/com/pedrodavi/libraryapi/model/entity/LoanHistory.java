@@ -0,0 +1,56 @@
+package br.com.pedrodavi.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Empréstimo devolvido e arquivado. Mantém o id original do empréstimo; loanMonth (yyyyMM) é a
+ * chave de partição da tabela. O livro fica só como id, sem FK, para o arquivo não impedir a
+ * exclusão de livros.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "loan_history", indexes = {
+        @Index(name = "idx_loan_history_book", columnList = "id_book"),
+        @Index(name = "idx_loan_history_month", columnList = "loan_month"),
+        @Index(name = "idx_loan_history_customer", columnList = "customer_id")
+})
+public class LoanHistory {
+
+    @Id
+    @Column
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column
+    private String email;
+
+    @Column(name = "id_book")
+    private Long bookId;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column
+    private LocalDate loanDate;
+
+    @Column(name = "loan_month")
+    private Integer loanMonth;
+
+    @Column
+    private LocalDate archivedAt;
+
+    @Column
+    private Long version;
+
+}
@@ -0,0 +1,38 @@
+package br.com.pedrodavi.libraryapi.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+// fila de reservas de um livro emprestado; a ordem de chegada é a do id
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_reservation_book", columnList = "id_book, id"))
+public class Reservation {
+
+    @Id
+    @Column
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 100)
+    private String customer;
+
+    @Column
+    private String email;
+
+    @JoinColumn(name = "id_book", nullable = false)
+    @ManyToOne
+    private Book book;
+
+    @Column(name = "reserved_at")
+    private LocalDateTime reservedAt;
+
+}
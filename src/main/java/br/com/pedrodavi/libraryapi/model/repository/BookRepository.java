@@ -2,12 +2,44 @@ package br.com.pedrodavi.libraryapi.model.repository;
 
 import br.com.pedrodavi.libraryapi.model.entity.Book;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
 
     boolean existsByIsbn(String isbn);
 
+    // transação própria somente leitura, como o findById herdado (o serviço não abre uma)
+    @Transactional(readOnly = true)
     Optional<Book> findByIsbn(String isbn);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    // trava a linha do livro até o fim da transação (reservas x devoluções)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select b from Book b where b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    // checkout: todos os livros em uma consulta, travados como no findByIdForUpdate
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select b from Book b where b.isbn in :isbns")
+    List<Book> findByIsbnInForUpdate(@Param("isbns") Collection<String> isbns);
+
+    @Query(value = "select b.isbn from Book b where b.id = :id")
+    Optional<String> findIsbnById(@Param("id") Long id);
+
+    // update condicional: só altera se a versão ainda for a que o cliente leu
+    @Modifying
+    @Query(value = "update Book b set b.title = :title, b.author = :author, b.version = b.version + 1 " +
+            "where b.id = :id and b.version = :version")
+    int updateDetails(@Param("id") Long id, @Param("title") String title, @Param("author") String author,
+                      @Param("version") Long version);
 }
@@ -0,0 +1,48 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.BookView;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface BookViewRepository extends JpaRepository<BookView, Long> {
+
+    // livro recém-cadastrado, ainda sem empréstimos
+    @Modifying
+    @Query(value = "insert into BookView (id, isbn, title, author, version, loanCount) " +
+            "select b.id, b.isbn, b.title, b.author, b.version, 0L from Book b where b.id = :id")
+    int insertFromBook(@Param("id") Long id);
+
+    // copia do livro, que o Hibernate grava antes deste update por ler a mesma tabela
+    @Modifying
+    @Query(value = "update BookView v set " +
+            "v.isbn = (select b.isbn from Book b where b.id = v.id), " +
+            "v.title = (select b.title from Book b where b.id = v.id), " +
+            "v.author = (select b.author from Book b where b.id = v.id), " +
+            "v.version = (select b.version from Book b where b.id = v.id) " +
+            "where v.id = :id")
+    int updateFromBook(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "delete from BookView v where v.id = :id")
+    int deleteByBookId(@Param("id") Long id);
+
+    // o empréstimo atual de cada livro é o que acabou de ser inserido nesta transação
+    @Modifying
+    @Query(value = "update BookView v set " +
+            "v.currentLoanId = (select max(l.id) from Loan l where l.book.id = v.id and ( l.returned is null or l.returned is false )), " +
+            "v.currentBorrower = :customer, v.loanCount = v.loanCount + 1, v.lastLoanDate = :loanDate " +
+            "where v.id in :bookIds")
+    int loansCreated(@Param("customer") String customer, @Param("loanDate") LocalDate loanDate,
+                     @Param("bookIds") Collection<Long> bookIds);
+
+    // só libera o livro se a devolução for do empréstimo atual
+    @Modifying
+    @Query(value = "update BookView v set v.currentLoanId = null, v.currentBorrower = null " +
+            "where v.id = :bookId and v.currentLoanId = :loanId")
+    int loanReturned(@Param("bookId") Long bookId, @Param("loanId") Long loanId);
+}
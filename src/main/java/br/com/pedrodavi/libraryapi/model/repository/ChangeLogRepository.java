@@ -0,0 +1,27 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface ChangeLogRepository extends JpaRepository<ChangeLog, Long> {
+
+    List<ChangeLog> findByIdGreaterThanOrderById(Long since, Pageable pageable);
+
+    Optional<ChangeLog> findTopByOrderByIdDesc();
+
+    Optional<ChangeLog> findTopByOrderByIdAsc();
+
+    Optional<ChangeLog> findTopByEntityTypeOrderByIdDesc(ChangeLog.EntityType entityType);
+
+    @Modifying
+    @Query(value = "delete from ChangeLog c where c.changedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
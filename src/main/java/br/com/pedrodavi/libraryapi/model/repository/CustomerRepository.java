@@ -0,0 +1,20 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    Optional<Customer> findByEmail(String email);
+
+    // insere só se o e-mail ainda não existir, num único comando; o cliente existente fica como está
+    @Modifying
+    @Query(value = "merge into customer c using (select cast(:email as varchar(255)) as email, cast(:name as varchar(100)) as name) s " +
+            "on c.email = s.email when not matched then insert (email, name) values (s.email, s.name)", nativeQuery = true)
+    int insertIfAbsent(@Param("email") String email, @Param("name") String name);
+}
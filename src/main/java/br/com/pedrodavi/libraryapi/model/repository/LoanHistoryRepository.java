@@ -0,0 +1,20 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.LoanHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface LoanHistoryRepository extends JpaRepository<LoanHistory, Long> {
+
+    // copia os empréstimos direto no banco, sem carregá-los na aplicação
+    @Modifying
+    @Query(value = "insert into LoanHistory (id, customer, email, bookId, customerId, loanDate, loanMonth, archivedAt, version) " +
+            "select l.id, l.customer, l.email, l.book.id, l.customerAccount.id, l.loanDate, year(l.loanDate) * 100 + month(l.loanDate), " +
+            ":archivedAt, l.version from Loan l where l.id in :ids")
+    int archive(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDate archivedAt);
+}
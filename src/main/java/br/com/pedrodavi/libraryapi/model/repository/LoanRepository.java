@@ -1,14 +1,17 @@
 package br.com.pedrodavi.libraryapi.model.repository;
 
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 public interface LoanRepository extends JpaRepository<Loan, Long> {
@@ -18,11 +21,100 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
             "from Loan l where l.book = :book and ( l.returned is null or l.returned is false )")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
+    // livros, entre os informados, que têm empréstimo ativo
+    @Query(value = "select l.book.id from Loan l where l.book.id in :bookIds and ( l.returned is null or l.returned is false )")
+    List<Long> findNotReturnedBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query(value = "select l from Loan l join fetch l.book b where b.id in :bookIds and ( l.returned is null or l.returned is false )")
+    List<Loan> findNotReturnedByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    // um insert só para todos os livros do checkout; com id identity o Hibernate não agrupa inserts em batch
+    @Modifying
+    @Query(value = "insert into Loan (customer, email, customerAccount, loanDate, book, version) " +
+            "select :customer, :email, c, :loanDate, b, 0L from Book b, Customer c " +
+            "where b.id in :bookIds and c.id = :customerId")
+    int insertLoans(@Param("customer") String customer, @Param("email") String email, @Param("customerId") Long customerId,
+                    @Param("loanDate") LocalDate loanDate, @Param("bookIds") Collection<Long> bookIds);
+
+    // join fetch: o livro vem na mesma consulta, sem um select por empréstimo da página
+    @Query(value = "select l from Loan as l join fetch l.book as b where b.isbn = :isbn or l.customer = :customer",
+            countQuery = "select count(l) from Loan as l join l.book as b where b.isbn = :isbn or l.customer = :customer")
     Page<Loan> findByBookIsbnOrCustomer(@Param("isbn") String isbn, @Param("customer") String customer, Pageable pageRequest);
 
-    Page<Loan> findByBook(Book book, Pageable pageable);
+    // empréstimos ativos e arquivados do livro; o histórico é sempre devolvido. A ordem é fixa
+    // (mais recentes primeiro) para as páginas não se sobreporem: o Pageable deve vir sem sort
+    @Query(value = "select id, customer, email, customer_id, loan_date, returned, id_book, version from loan where id_book = :#{#book.id} " +
+            "union all " +
+            "select id, customer, email, customer_id, loan_date, true, id_book, version from loan_history where id_book = :#{#book.id} " +
+            "order by loan_date desc, id desc",
+            countQuery = "select (select count(*) from loan where id_book = :#{#book.id}) " +
+                    "+ (select count(*) from loan_history where id_book = :#{#book.id})",
+            nativeQuery = true)
+    Page<Loan> findByBook(@Param("book") Book book, Pageable pageable);
+
+    // empréstimos ativos e arquivados do cliente, pelos índices de customer_id, na mesma ordem fixa de findByBook
+    @Query(value = "select id, customer, email, customer_id, loan_date, returned, id_book, version from loan where customer_id = :#{#customer.id} " +
+            "union all " +
+            "select id, customer, email, customer_id, loan_date, true, id_book, version from loan_history where customer_id = :#{#customer.id} " +
+            "order by loan_date desc, id desc",
+            countQuery = "select (select count(*) from loan where customer_id = :#{#customer.id}) " +
+                    "+ (select count(*) from loan_history where customer_id = :#{#customer.id})",
+            nativeQuery = true)
+    Page<Loan> findByCustomerAccount(@Param("customer") Customer customer, Pageable pageable);
+
+    // quantidade de empréstimos do livro e data do último, incluindo os arquivados
+    @Query(value = "select count(*), max(loan_date) from (select loan_date from loan where id_book = :bookId " +
+            "union all select loan_date from loan_history where id_book = :bookId) l", nativeQuery = true)
+    List<Object[]> summarizeByBookId(@Param("bookId") Long bookId);
 
     @Query(value = "select l from Loan l where l.loanDate <= :threeDaysAgo and ( l.returned is null or l.returned is false )")
     List<Loan> findByLoanDateLessThanAndNotReturned(@Param("threeDaysAgo") LocalDate threeDaysAgo);
+
+    @Query(value = "select l.book.id from Loan l where l.id = :id")
+    Long findBookIdById(@Param("id") Long id);
+
+    @Query(value = "select l.loanDate from Loan l where l.id = :id")
+    LocalDate findLoanDateById(@Param("id") Long id);
+
+    @Query(value = "select l.returned from Loan l where l.id = :id")
+    Boolean findReturnedById(@Param("id") Long id);
+
+    // só altera se o estado mudar: devolver de novo um empréstimo devolvido não conta como alteração
+    @Modifying
+    @Query(value = "update Loan l set l.returned = :returned, l.version = l.version + 1 " +
+            "where l.id = :id and coalesce(l.returned, false) <> :returned")
+    int updateReturned(@Param("id") Long id, @Param("returned") Boolean returned);
+
+    // update condicional: só altera se a versão ainda for a que o cliente leu
+    @Modifying
+    @Query(value = "update Loan l set l.returned = :returned, l.version = l.version + 1 " +
+            "where l.id = :id and l.version = :version and coalesce(l.returned, false) <> :returned")
+    int updateReturned(@Param("id") Long id, @Param("returned") Boolean returned, @Param("version") Long version);
+
+    @Query(value = "select l.id from Loan l where l.returned is true and l.loanDate < :before")
+    List<Long> findReturnedIdsBefore(@Param("before") LocalDate before, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from Loan l where l.id in :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
+
+    // consultas usadas apenas na reconciliação das estatísticas ao subir a aplicação
+    @Query(value = "select l.loanDate, count(l.id) from Loan l where l.loanDate >= :since group by l.loanDate")
+    List<Object[]> countLoansPerDaySince(@Param("since") LocalDate since);
+
+    @Query(value = "select l.id, l.loanDate from Loan l where l.returned is null or l.returned is false")
+    List<Object[]> findNotReturnedLoanDates();
+
+    // empréstimos ativos e arquivados somados por livro, os mais emprestados primeiro; livros excluídos ficam de fora
+    @Query(value = "select b.id, b.isbn, count(*) as loans " +
+            "from (select id_book from loan union all select id_book from loan_history) l " +
+            "join book b on b.id = l.id_book " +
+            "group by b.id, b.isbn order by loans desc, b.id limit :limit", nativeQuery = true)
+    List<Object[]> countLoansPerBook(@Param("limit") int limit);
+
+    // empréstimos em aberto feitos antes de loanedBefore, ordenados por cliente (e-mail da conta ou do empréstimo)
+    @Query(value = "select l.loanDate, lower(coalesce(c.email, l.email)) from Loan l left join l.customerAccount c " +
+            "where l.loanDate < :loanedBefore and ( l.returned is null or l.returned is false ) " +
+            "and coalesce(c.email, l.email) is not null order by lower(coalesce(c.email, l.email))")
+    List<Object[]> findOverdueLoanDates(@Param("loanedBefore") LocalDate loanedBefore);
 }
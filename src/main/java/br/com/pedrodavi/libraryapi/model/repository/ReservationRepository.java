@@ -0,0 +1,17 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+
+    boolean existsByBookAndEmailIgnoreCase(Book book, String email);
+
+    Optional<Reservation> findFirstByBookOrderById(Book book);
+
+    // posição na fila: reservas do livro feitas até esta
+    long countByBookAndIdLessThanEqual(Book book, Long id);
+}
@@ -4,6 +4,7 @@ import br.com.pedrodavi.libraryapi.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface BookService {
@@ -16,7 +17,17 @@ public interface BookService {
 
     Book update(Book book);
 
+    // o livro como ficou gravado (com o isbn); vazio se o id não existe
+    Optional<Book> updateDetails(Long id, String title, String author, Long version);
+
     Page<Book> find(Book filter, Pageable pageRequest);
 
     Optional<Book> getBookByIsbn(String isbn);
+
+    List<Optional<Book>> getByIds(List<Long> ids);
+
+    List<Optional<Book>> getByIsbns(List<String> isbns);
+
+    // invalida o cache de buscas se outra instância alterou livros desde a última verificação
+    void syncSearchCache();
 }
@@ -0,0 +1,24 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookSuggestionDTO;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+
+import java.util.List;
+
+public interface BookSuggestionService {
+
+    // ignora o livro se o índice já tiver uma versão mais nova dele
+    void bookSaved(Book book);
+
+    void bookDeleted(Long bookId);
+
+    List<BookSuggestionDTO> suggest(String prefix, int limit);
+
+    void reconcile();
+
+    // o índice já reflete o feed de mudanças até sequence (por exemplo, carregado de um snapshot)
+    void followChangesFrom(long sequence);
+
+    // aplica as mudanças de livros do feed desde a última sincronização, inclusive as de outras instâncias
+    void syncChanges();
+}
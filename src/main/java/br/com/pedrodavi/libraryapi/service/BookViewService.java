@@ -0,0 +1,24 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.BookView;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Optional;
+
+public interface BookViewService {
+
+    Optional<BookView> getById(Long id);
+
+    void bookSaved(Long bookId);
+
+    void bookChanged(Long bookId);
+
+    void bookDeleted(Long bookId);
+
+    void loansCreated(String customer, LocalDate loanDate, Collection<Long> bookIds);
+
+    void loanReturned(Long bookId, Long loanId);
+
+    void refresh(Long bookId);
+}
@@ -0,0 +1,10 @@
+package br.com.pedrodavi.libraryapi.service;
+
+public interface CatalogSnapshotService {
+
+    void writeSnapshot();
+
+    boolean loadSnapshot();
+
+    void reconcileChanges();
+}
@@ -0,0 +1,26 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+
+import java.util.List;
+
+public interface ChangeFeedService {
+
+    void record(ChangeLog.EntityType entityType, Long entityId, ChangeLog.Operation operation, Long entityVersion);
+
+    List<ChangeLog> getChanges(long since, int limit);
+
+    long currentSequence();
+
+    // última sequência de alterações do tipo: a mesma para todas as instâncias que usam o banco
+    long currentSequence(ChangeLog.EntityType entityType);
+
+    // menor sequência ainda guardada (as mais antigas já foram expurgadas); 0 com o feed vazio
+    long firstSequence();
+
+    void addListener(Runnable listener);
+
+    void removeListener(Runnable listener);
+
+    int purgeOldChanges();
+}
@@ -0,0 +1,12 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+
+import java.util.Optional;
+
+public interface CustomerService {
+
+    Optional<Customer> getById(Long id);
+
+    Customer getOrCreate(String name, String email);
+}
@@ -0,0 +1,62 @@
+package br.com.pedrodavi.libraryapi.service;
+
+/**
+ * Evento de domínio entregue aos DomainEventListener. As instâncias são os slots do ring
+ * buffer do barramento, pré-alocados e reaproveitados: o ouvinte que precisar guardar o
+ * evento depois de onEvent deve usar copy().
+ */
+public final class DomainEvent {
+
+    public enum Type {
+        LOAN_CREATED, LOAN_RETURNED, BOOK_CREATED, BOOK_UPDATED, BOOK_DELETED
+    }
+
+    private Type type;
+    private Long entityId;
+    private Long entityVersion;
+    private String tenantId;
+    private long publishedAt;
+
+    public Type getType() {
+        return type;
+    }
+
+    // id do empréstimo nos eventos LOAN_*, do livro nos BOOK_*
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getEntityVersion() {
+        return entityVersion;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    // System.currentTimeMillis() do commit que publicou o evento
+    public long getPublishedAt() {
+        return publishedAt;
+    }
+
+    // preenchimento do slot pelo barramento, antes de publicá-lo
+    public void set(Type type, Long entityId, Long entityVersion, String tenantId, long publishedAt) {
+        this.type = type;
+        this.entityId = entityId;
+        this.entityVersion = entityVersion;
+        this.tenantId = tenantId;
+        this.publishedAt = publishedAt;
+    }
+
+    public DomainEvent copy() {
+        DomainEvent copy = new DomainEvent();
+        copy.set(type, entityId, entityVersion, tenantId, publishedAt);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "DomainEvent(type=" + type + ", entityId=" + entityId + ", entityVersion=" + entityVersion
+                + ", tenantId=" + tenantId + ")";
+    }
+}
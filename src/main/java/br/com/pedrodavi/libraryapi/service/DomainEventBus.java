@@ -0,0 +1,10 @@
+package br.com.pedrodavi.libraryapi.service;
+
+public interface DomainEventBus {
+
+    // dentro de uma transação, publica só depois do commit; sem transação, na hora
+    void publish(DomainEvent.Type type, Long entityId, Long entityVersion);
+
+    // espera os ouvintes processarem tudo o que já foi publicado
+    boolean awaitDelivery(long timeoutMillis);
+}
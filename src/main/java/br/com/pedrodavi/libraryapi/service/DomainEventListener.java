@@ -0,0 +1,11 @@
+package br.com.pedrodavi.libraryapi.service;
+
+/**
+ * Ouvinte dos eventos de domínio, registrado como bean. Cada ouvinte tem a sua thread, recebe
+ * todos os eventos na ordem de publicação e roda no tenant de quem publicou; endOfBatch marca
+ * o último evento disponível no momento, bom ponto para gravar o que foi acumulado no lote.
+ */
+public interface DomainEventListener {
+
+    void onEvent(DomainEvent event, boolean endOfBatch);
+}
@@ -1,7 +1,9 @@
 package br.com.pedrodavi.libraryapi.service;
 
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+
 import java.util.List;
 
 public interface EmailService {
-    void sendMails(String messageBodyEmail, List<String> emails);
-}
\ No newline at end of file
+    void sendLateLoanMails(String messageBodyEmail, List<Loan> lateLoans);
+}
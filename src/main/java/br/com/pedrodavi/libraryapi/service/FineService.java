@@ -0,0 +1,12 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.CustomerBalanceDTO;
+
+public interface FineService {
+
+    // recalcula os saldos de todos os clientes do tenant atual
+    void recompute();
+
+    // multas acumuladas nos empréstimos em aberto, segundo o último cálculo
+    CustomerBalanceDTO getBalance(String email);
+}
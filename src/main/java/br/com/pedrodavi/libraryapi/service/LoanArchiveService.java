@@ -0,0 +1,6 @@
+package br.com.pedrodavi.libraryapi.service;
+
+public interface LoanArchiveService {
+
+    int archiveReturnedLoans();
+}
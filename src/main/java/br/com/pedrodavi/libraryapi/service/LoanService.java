@@ -1,7 +1,9 @@
 package br.com.pedrodavi.libraryapi.service;
 
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutResultDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanFilterDTO;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,13 +15,19 @@ public interface LoanService {
 
     Loan save(Loan loan);
 
+    List<CheckoutResultDTO> checkout(String customer, String email, List<String> isbns);
+
     Optional<Loan> getById(Long id);
 
     Loan update(Loan loan);
 
+    boolean updateReturned(Long id, Boolean returned, Long version);
+
     Page<Loan> find(LoanFilterDTO filter, Pageable pageable);
 
     Page<Loan> getLoansByBook(Book book, Pageable pageable);
 
+    Page<Loan> getLoansByCustomer(Customer customer, Pageable pageable);
+
     List<Loan> getAllLateLoans();
 }
@@ -0,0 +1,15 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.LoanStatisticsDTO;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+
+public interface LoanStatisticsService {
+
+    void loanCreated(Loan loan);
+
+    void loanUpdated(Loan loan);
+
+    LoanStatisticsDTO getStatistics();
+
+    void reconcile();
+}
@@ -0,0 +1,14 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+
+import java.util.Optional;
+
+public interface ReservationService {
+
+    Reservation reserve(Reservation reservation);
+
+    long getPosition(Reservation reservation);
+
+    Optional<Reservation> pollNext(Long bookId);
+}
@@ -1,5 +1,6 @@
 package br.com.pedrodavi.libraryapi.service;
 
+import br.com.pedrodavi.libraryapi.config.Tenants;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -7,25 +8,66 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ScheduledService {
 
     private static final String CRON_LATE_LOANS = "0 0 12 1/1 * ?";
+    private static final String CRON_ARCHIVE_LOANS = "0 0 3 1/1 * ?";
+    private static final String CRON_PURGE_CHANGES = "0 30 3 1/1 * ?";
+    private static final String CRON_CATALOG_SNAPSHOT = "0 0/15 * * * ?";
+    private static final String CRON_FINES = "0 5/15 * * * ?";
+    private static final String CRON_SYNC_CATALOG = "0/5 * * * * ?";
 
     @Value("${application.mail.lateloans.message}")
     private String messageBodyEmail;
 
     private final LoanService loanService;
     private final EmailService emailService;
+    private final LoanArchiveService loanArchiveService;
+    private final ChangeFeedService changeFeedService;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final FineService fineService;
+    private final BookSuggestionService bookSuggestionService;
+    private final BookService bookService;
+    private final Tenants tenants;
 
     @Scheduled(cron = CRON_LATE_LOANS)
     public void sendMailToLateLoans(){
-        List<Loan> allLateLoans = loanService.getAllLateLoans(); // obtem todos empréstimos atrasados
-        List<String> emails = allLateLoans.stream().map(loan -> loan.getEmail()).collect(Collectors.toList());
-        emailService.sendMails(messageBodyEmail, emails);
+        tenants.forEach(() -> {
+            List<Loan> allLateLoans = loanService.getAllLateLoans(); // obtem todos empréstimos atrasados
+            emailService.sendLateLoanMails(messageBodyEmail, allLateLoans);
+        });
+    }
+
+    @Scheduled(cron = CRON_ARCHIVE_LOANS)
+    public void archiveReturnedLoans(){
+        tenants.forEach(loanArchiveService::archiveReturnedLoans); // move devolvidos antigos para loan_history
+    }
+
+    @Scheduled(cron = CRON_PURGE_CHANGES)
+    public void purgeOldChanges(){
+        tenants.forEach(changeFeedService::purgeOldChanges); // remove do feed as mudanças fora da retenção
+    }
+
+    @Scheduled(cron = CRON_CATALOG_SNAPSHOT)
+    public void writeCatalogSnapshot(){
+        tenants.forEach(catalogSnapshotService::writeSnapshot); // sem application.catalog.snapshot.file não faz nada
+    }
+
+    @Scheduled(cron = CRON_SYNC_CATALOG)
+    public void syncCatalogChanges(){
+        // escritas de livros feitas em outras instâncias
+        tenants.forEach(() -> {
+            bookSuggestionService.syncChanges();
+            bookService.syncSearchCache();
+        });
+    }
+
+    @Scheduled(cron = CRON_FINES)
+    public void recomputeFines(){
+        tenants.forEach(fineService::recompute); // saldos de multas servidos por /api/customers/{email}/balance
     }
 
 }
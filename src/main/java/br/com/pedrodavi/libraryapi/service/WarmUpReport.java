@@ -0,0 +1,15 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import lombok.Builder;
+import lombok.Value;
+
+@Value
+@Builder
+public class WarmUpReport {
+
+    int iterations;
+    long elapsedMillis;
+    // primeira iteração (interpretada) e mediana do último décimo (já compilada pelo JIT)
+    long firstIterationMicros;
+    long warmIterationMicros;
+}
@@ -0,0 +1,12 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+public interface WarmUpService {
+
+    WarmUpReport warmUp(int iterations, Duration maxDuration);
+
+    // o do aquecimento feito na subida, se houve
+    Optional<WarmUpReport> getLastReport();
+}
@@ -0,0 +1,98 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resultado de buscas de livros (ids da página e total) por filtro normalizado e página, em LRU
+ * limitado. Cada entrada guarda a versão do catálogo de quando a consulta começou; uma escrita
+ * de livro só incrementa a versão, o que invalida todas as entradas sem percorrê-las, e as
+ * velhas saem quando lidas ou pelo LRU.
+ * <p>
+ * As escritas desta instância incrementam a versão no commit. As das outras chegam pela última
+ * sequência de livros do feed de mudanças, consultada periodicamente (feedChanged); até lá,
+ * o TTL limita quanto tempo uma entrada pode ficar desatualizada. Com réplica de leitura, nada
+ * é guardado enquanto a última mudança for mais nova que a tolerância de atraso da réplica: a
+ * leitura pode ainda não ter visto a mudança.
+ */
+final class BookSearchCache {
+
+    static final class Result {
+
+        final long version;
+        final long createdAt;
+        final long[] ids;
+        final long total;
+
+        Result(long version, long createdAt, long[] ids, long total) {
+            this.version = version;
+            this.createdAt = createdAt;
+            this.ids = ids;
+            this.total = total;
+        }
+    }
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong feedSequence = new AtomicLong(-1);
+    private final long ttlNanos;
+    private final long replicaLagNanos;
+    private volatile long changedAt;
+    private final Map<String, Result> entries;
+
+    BookSearchCache(int maxEntries, Duration ttl, Duration replicaLag) {
+        this.ttlNanos = ttl.toNanos();
+        this.replicaLagNanos = replicaLag.toNanos();
+        this.changedAt = System.nanoTime() - replicaLagNanos;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // lida antes da consulta e passada ao put
+    long version() {
+        return catalogVersion.get();
+    }
+
+    void invalidate() {
+        changedAt = System.nanoTime();
+        catalogVersion.incrementAndGet();
+    }
+
+    // última sequência de livros do feed de mudanças: mudou, alguma instância escreveu
+    void feedChanged(long sequence) {
+        if (feedSequence.getAndSet(sequence) != sequence) {
+            invalidate();
+        }
+    }
+
+    Result get(String key) {
+        synchronized (entries) {
+            Result result = entries.get(key);
+            if (result != null && (result.version != catalogVersion.get()
+                    || System.nanoTime() - result.createdAt > ttlNanos)) {
+                entries.remove(key);
+                return null;
+            }
+            return result;
+        }
+    }
+
+    void put(String key, long version, long[] ids, long total) {
+        long now = System.nanoTime();
+        // leitura da réplica logo depois de uma mudança pode não tê-la visto
+        if (now - changedAt < replicaLagNanos) {
+            return;
+        }
+        synchronized (entries) {
+            // o catálogo mudou durante a consulta: o resultado pode já estar velho
+            if (version == catalogVersion.get()) {
+                entries.put(key, new Result(version, now, ids, total));
+            }
+        }
+    }
+}
@@ -2,67 +2,279 @@ package br.com.pedrodavi.libraryapi.service.impl;
 
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
 import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
 import br.com.pedrodavi.libraryapi.service.BookService;
+import br.com.pedrodavi.libraryapi.service.BookSuggestionService;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import br.com.pedrodavi.libraryapi.service.DomainEvent;
+import br.com.pedrodavi.libraryapi.service.DomainEventBus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
-public class BookServiceImpl implements BookService {
+public class BookServiceImpl implements BookService, MeterBinder {
+
+    public static final int LOOKUP_MAX_KEYS = 1000;
+    public static final int LOOKUP_CHUNK_SIZE = 500;
 
     private BookRepository repository;
+    private BookSuggestionService suggestionService;
+    private ChangeFeedService changeFeedService;
+    private BookViewService bookViewService;
+    private DomainEventBus eventBus;
+    // por tenant: o mesmo id ou ISBN é outro livro no banco de outro tenant
+    private TenantLocal<SingleFlight<Long, Optional<Book>>> byIdLoads = new TenantLocal<>(() -> new SingleFlight<>(BookServiceImpl::copyOf));
+    private TenantLocal<SingleFlight<String, Optional<Book>>> byIsbnLoads = new TenantLocal<>(() -> new SingleFlight<>(BookServiceImpl::copyOf));
+    private TenantLocal<BookSearchCache> searchCache;
+    private int searchCacheSize;
+    private final LongAdder searchCacheHits = new LongAdder();
+    private final LongAdder searchCacheMisses = new LongAdder();
 
-    public BookServiceImpl(BookRepository repository) {
+    public BookServiceImpl(BookRepository repository, BookSuggestionService suggestionService,
+                           ChangeFeedService changeFeedService, BookViewService bookViewService,
+                           DomainEventBus eventBus,
+                           @Value("${application.books.search-cache.size:1000}") int searchCacheSize,
+                           @Value("${application.books.search-cache.ttl:30s}") Duration searchCacheTtl,
+                           @Value("${application.datasource.replica.jdbc-url:}") String replicaUrl,
+                           @Value("${application.datasource.replica.lag-tolerance:2s}") Duration replicaLagTolerance) {
         this.repository = repository;
+        this.suggestionService = suggestionService;
+        this.changeFeedService = changeFeedService;
+        this.bookViewService = bookViewService;
+        this.eventBus = eventBus;
+        this.searchCacheSize = searchCacheSize;
+        // sem réplica, as leituras somente leitura vão para o primário e não atrasam
+        Duration replicaLag = replicaUrl.isBlank() ? Duration.ZERO : replicaLagTolerance;
+        this.searchCache = new TenantLocal<>(() -> new BookSearchCache(searchCacheSize, searchCacheTtl, replicaLag));
+    }
+
+    // acertos e faltas somados entre os tenants; a taxa de acerto é hit / (hit + miss)
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("books.search.cache", searchCacheHits, LongAdder::sum)
+                .tag("result", "hit").description("Buscas de livros respondidas pelo cache").register(registry);
+        FunctionCounter.builder("books.search.cache", searchCacheMisses, LongAdder::sum)
+                .tag("result", "miss").description("Buscas de livros que consultaram o banco").register(registry);
     }
 
     @Override
+    @Transactional
     public Book save(Book book) {
         if(repository.existsByIsbn(book.getIsbn())){
             throw new BusinessException("ISBN já cadastrado.");
         }
-        return repository.save(book);
+        Book savedBook = repository.save(book);
+        bookViewService.bookSaved(savedBook.getId());
+        catalogChanged();
+        afterCommit(() -> suggestionService.bookSaved(savedBook));
+        changeFeedService.record(ChangeLog.EntityType.BOOK, savedBook.getId(), ChangeLog.Operation.CREATED, savedBook.getVersion());
+        eventBus.publish(DomainEvent.Type.BOOK_CREATED, savedBook.getId(), savedBook.getVersion());
+        return savedBook;
     }
 
+    // sem @Transactional: a consulta roda na transação do repositório, só na chamada que
+    // carrega, e quem aguarda a carga em andamento não segura conexão do pool
     @Override
     public Optional<Book> getById(Long id) {
-        return this.repository.findById(id);
+        return byIdLoads.get().load(id, () -> this.repository.findById(id));
     }
 
     @Override
+    @Transactional
     public void delete(Book book) {
         if(book.getId() != null && book.getId() >= 0){
             this.repository.delete(book);
+            bookViewService.bookDeleted(book.getId());
+            catalogChanged();
+            afterCommit(() -> suggestionService.bookDeleted(book.getId()));
+            changeFeedService.record(ChangeLog.EntityType.BOOK, book.getId(), ChangeLog.Operation.DELETED, book.getVersion());
+            eventBus.publish(DomainEvent.Type.BOOK_DELETED, book.getId(), book.getVersion());
         } else {
             throw new IllegalArgumentException("Book id cant be null or < 0.");
         }
     }
 
     @Override
+    @Transactional
     public Book update(Book book) {
         if(book.getId() != null && book.getId() >= 0){
-            return this.repository.save(book);
+            Book updatedBook = this.repository.save(book);
+            bookViewService.bookChanged(updatedBook.getId());
+            catalogChanged();
+            afterCommit(() -> suggestionService.bookSaved(updatedBook));
+            changeFeedService.record(ChangeLog.EntityType.BOOK, updatedBook.getId(), ChangeLog.Operation.UPDATED, updatedBook.getVersion());
+            eventBus.publish(DomainEvent.Type.BOOK_UPDATED, updatedBook.getId(), updatedBook.getVersion());
+            return updatedBook;
         } else {
             throw new IllegalArgumentException("Book id cant be null or < 0.");
         }
     }
 
     @Override
+    @Transactional
+    public Optional<Book> updateDetails(Long id, String title, String author, Long version) {
+        if (repository.updateDetails(id, title, author, version) > 0) {
+            // o isbn não muda no update: uma consulta só dessa coluna completa a resposta
+            Book updatedBook = Book.builder().id(id).title(title).author(author)
+                    .isbn(repository.findIsbnById(id).orElse(null)).version(version + 1).build();
+            bookViewService.bookChanged(id);
+            catalogChanged();
+            afterCommit(() -> suggestionService.bookSaved(updatedBook));
+            changeFeedService.record(ChangeLog.EntityType.BOOK, id, ChangeLog.Operation.UPDATED, version + 1);
+            eventBus.publish(DomainEvent.Type.BOOK_UPDATED, id, version + 1);
+            return Optional.of(updatedBook);
+        }
+        // nenhuma linha alterada: só aqui consulta para diferenciar conflito de inexistente
+        if (repository.existsById(id)) {
+            throw new ObjectOptimisticLockingFailureException(Book.class, id);
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
         Example<Book> example = Example.of(filter, ExampleMatcher
                 .matching().withIgnoreCase().withIgnoreNullValues()
                 .withStringMatcher(ExampleMatcher.StringMatcher.CONTAINING));
-        return repository.findAll(example, pageRequest);
+        // dentro de uma transação de escrita a busca pode ver livros ainda não gravados
+        boolean cacheable = searchCacheSize > 0 && pageRequest.isPaged()
+                && (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+        if (!cacheable) {
+            return repository.findAll(example, pageRequest);
+        }
+
+        BookSearchCache cache = searchCache.get();
+        String key = searchKey(filter, pageRequest);
+        BookSearchCache.Result cached = cache.get(key);
+        if (cached != null) {
+            List<Book> books = findAllInOrder(cached.ids);
+            if (books != null) {
+                searchCacheHits.increment();
+                return new PageImpl<>(books, pageRequest, cached.total);
+            }
+        }
+        searchCacheMisses.increment();
+        long version = cache.version();
+        Page<Book> page = repository.findAll(example, pageRequest);
+        cache.put(key, version, page.getContent().stream().mapToLong(Book::getId).toArray(), page.getTotalElements());
+        return page;
+    }
+
+    // uma consulta a cada poucos segundos, e não uma por busca, para ver as escritas das outras instâncias
+    @Override
+    public void syncSearchCache() {
+        if (searchCacheSize > 0) {
+            searchCache.get().feedChanged(changeFeedService.currentSequence(ChangeLog.EntityType.BOOK));
+        }
+    }
+
+    // acerto no cache: uma consulta pela chave primária no lugar do LIKE e do count
+    private List<Book> findAllInOrder(long[] ids) {
+        if (ids.length == 0) {
+            return List.of();
+        }
+        Map<Long, Book> found = new HashMap<>();
+        repository.findAllById(Arrays.stream(ids).boxed().collect(Collectors.toList()))
+                .forEach(book -> found.put(book.getId(), book));
+        List<Book> books = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            Book book = found.get(id);
+            if (book == null) {
+                return null;
+            }
+            books.add(book);
+        }
+        return books;
+    }
+
+    // mesma semântica do ExampleMatcher (ignora maiúsculas e nulos): filtros equivalentes dividem a entrada
+    private static String searchKey(Book filter, Pageable pageable) {
+        return String.join("|", String.valueOf(filter.getId()), normalize(filter.getTitle()),
+                normalize(filter.getAuthor()), normalize(filter.getIsbn()), String.valueOf(filter.getVersion()),
+                String.valueOf(pageable.getPageNumber()), String.valueOf(pageable.getPageSize()),
+                pageable.getSort().toString());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "-" : '"' + value.toLowerCase(Locale.ROOT).replace("\"", "\"\"") + '"';
+    }
+
+    // a versão só muda depois do commit: o que for lido antes dele fica com a versão antiga e é descartado
+    private void catalogChanged() {
+        BookSearchCache cache = searchCache.get();
+        afterCommit(cache::invalidate);
+    }
+
+    // estado em memória só muda com a escrita confirmada: um rollback não deixa rastro nele
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
     @Override
     public Optional<Book> getBookByIsbn(String isbn) {
-        return repository.findByIsbn(isbn);
+        return byIsbnLoads.get().load(isbn, () -> repository.findByIsbn(isbn));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Optional<Book>> getByIds(List<Long> ids) {
+        return lookup(ids, repository::findAllById, Book::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Optional<Book>> getByIsbns(List<String> isbns) {
+        return lookup(isbns, repository::findByIsbnIn, Book::getIsbn);
+    }
+
+    // uma consulta IN por bloco de chaves distintas; a resposta segue a ordem pedida
+    private <K> List<Optional<Book>> lookup(List<K> keys, Function<List<K>, List<Book>> query, Function<Book, K> keyOf) {
+        if (keys.size() > LOOKUP_MAX_KEYS) {
+            throw new BusinessException("Máximo de " + LOOKUP_MAX_KEYS + " livros por consulta.");
+        }
+        List<K> distinct = keys.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+        Map<K, Book> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<K> chunk = distinct.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinct.size()));
+            query.apply(chunk).forEach(book -> found.put(keyOf.apply(book), book));
+        }
+        return keys.stream().map(key -> Optional.ofNullable(key == null ? null : found.get(key))).collect(Collectors.toList());
+    }
+
+    private static Optional<Book> copyOf(Optional<Book> book) {
+        return book.map(b -> Book.builder().id(b.getId()).title(b.getTitle()).author(b.getAuthor())
+                .isbn(b.getIsbn()).version(b.getVersion()).build());
     }
 
 }
@@ -0,0 +1,253 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookSuggestionDTO;
+import br.com.pedrodavi.libraryapi.config.StartupConfig;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.BookSuggestionService;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Sugestões por prefixo de títulos e autores servidas de índices ordenados em memória,
+ * sem a busca CONTAINING no banco a cada tecla digitada. Os índices são atualizados depois
+ * do commit das escritas de livros desta instância, recarregados do banco quando a aplicação
+ * sobe e acompanham o feed de mudanças (syncChanges), que traz as escritas das outras
+ * instâncias com alguns segundos de atraso. Cada tenant tem seus próprios índices.
+ */
+@Service
+public class BookSuggestionServiceImpl implements BookSuggestionService {
+
+    public static final String TITLE = "title";
+    public static final String AUTHOR = "author";
+    public static final int MAX_SUGGESTIONS = 50;
+
+    static final int MAX_INDEXED_WORDS = 8;
+    private static final int RECONCILE_BATCH_SIZE = 1000;
+    private static final int SYNC_CHUNK_SIZE = 500;
+    private static final char SEPARATOR = '\u0000';
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final BookRepository repository;
+    private final ChangeFeedService changeFeedService;
+    private final Tenants tenants;
+    private final TenantLocal<Index> indexes = new TenantLocal<>(Index::new);
+
+    public BookSuggestionServiceImpl(BookRepository repository, ChangeFeedService changeFeedService, Tenants tenants) {
+        this.repository = repository;
+        this.changeFeedService = changeFeedService;
+        this.tenants = tenants;
+    }
+
+    @Override
+    public void bookSaved(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+        Index index = indexes.get();
+        IndexedBook current = new IndexedBook(book.getTitle(), book.getAuthor(), book.getVersion());
+        index.indexed.compute(book.getId(), (id, previous) -> {
+            // releituras (snapshot, feed) podem chegar depois de uma escrita mais nova
+            if (previous != null && previous.isNewerThan(current)) {
+                return previous;
+            }
+            if (previous != null) {
+                unindex(index, id, previous);
+            }
+            index(index, id, current);
+            return current;
+        });
+    }
+
+    @Override
+    public void bookDeleted(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        Index index = indexes.get();
+        index.indexed.computeIfPresent(bookId, (id, previous) -> {
+            unindex(index, id, previous);
+            return null;
+        });
+    }
+
+    @Override
+    public List<BookSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = prefix == null ? "" : normalize(prefix);
+        int max = Math.min(Math.max(limit, 0), MAX_SUGGESTIONS);
+        if (normalized.isEmpty() || max == 0) {
+            return Collections.emptyList();
+        }
+        Index index = indexes.get();
+        Map<String, BookSuggestionDTO> suggestions = new LinkedHashMap<>();
+        collect(index.texts, normalized, max, suggestions);
+        collect(index.words, normalized, max, suggestions);
+        return new ArrayList<>(suggestions.values());
+    }
+
+    // se o índice já veio do snapshot do catálogo, dispensa a carga completa do banco
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(StartupConfig.RECONCILE_ORDER)
+    public void reconcileIfEmpty() {
+        tenants.forEach(() -> {
+            if (indexes.get().indexed.isEmpty()) {
+                reconcile();
+            }
+        });
+    }
+
+    @Override
+    public void reconcile() {
+        Index index = indexes.get();
+        index.texts.clear();
+        index.words.clear();
+        index.indexed.clear();
+        // lida antes da carga: o que mudar durante ela é reaplicado pelo syncChanges
+        long sequence = changeFeedService.currentSequence();
+        Pageable pageable = PageRequest.of(0, RECONCILE_BATCH_SIZE, Sort.by("id"));
+        Page<Book> page;
+        do {
+            page = repository.findAll(pageable);
+            page.forEach(this::bookSaved);
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        index.syncedSequence.set(sequence);
+    }
+
+    @Override
+    public void followChangesFrom(long sequence) {
+        indexes.get().syncedSequence.set(sequence);
+    }
+
+    @Override
+    public void syncChanges() {
+        AtomicLong synced = indexes.get().syncedSequence;
+        long since = synced.get();
+        if (since < 0) {
+            return; // índice ainda não carregado
+        }
+        Set<Long> changedBooks = new LinkedHashSet<>();
+        List<ChangeLog> changes;
+        do {
+            changes = changeFeedService.getChanges(since, RECONCILE_BATCH_SIZE);
+            for (ChangeLog change : changes) {
+                if (change.getEntityType() == ChangeLog.EntityType.BOOK) {
+                    changedBooks.add(change.getEntityId());
+                }
+                since = change.getId();
+            }
+        } while (changes.size() == RECONCILE_BATCH_SIZE);
+
+        // relê os livros em vez de confiar no feed: vale o estado atual, inclusive das escritas locais
+        List<Long> ids = new ArrayList<>(changedBooks);
+        for (int from = 0; from < ids.size(); from += SYNC_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SYNC_CHUNK_SIZE, ids.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            for (Book book : repository.findAllById(chunk)) {
+                bookSaved(book);
+                missing.remove(book.getId());
+            }
+            missing.forEach(this::bookDeleted);
+        }
+        synced.set(since);
+    }
+
+    public static String normalize(String text) {
+        String withoutMarks = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(withoutMarks.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    private void collect(NavigableMap<String, BookSuggestionDTO> index, String prefix, int max,
+                         Map<String, BookSuggestionDTO> suggestions) {
+        if (suggestions.size() >= max) {
+            return;
+        }
+        for (BookSuggestionDTO suggestion : index.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            suggestions.putIfAbsent(suggestion.getType() + SEPARATOR + normalize(suggestion.getText()), suggestion);
+            if (suggestions.size() >= max) {
+                return;
+            }
+        }
+    }
+
+    private void index(Index index, Long id, IndexedBook book) {
+        index(index, id, book.title, TITLE, true);
+        index(index, id, book.author, AUTHOR, true);
+    }
+
+    private void unindex(Index index, Long id, IndexedBook book) {
+        index(index, id, book.title, TITLE, false);
+        index(index, id, book.author, AUTHOR, false);
+    }
+
+    private void index(Index index, Long id, String text, String type, boolean add) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        String normalized = normalize(text);
+        String suffix = "" + SEPARATOR + type + SEPARATOR + id;
+        BookSuggestionDTO suggestion = BookSuggestionDTO.builder().text(text.trim()).type(type).bookId(id).build();
+        update(index.texts, normalized + suffix, suggestion, add);
+        int start = 0;
+        for (int word = 1; word < MAX_INDEXED_WORDS; word++) {
+            start = normalized.indexOf(' ', start) + 1;
+            if (start == 0) {
+                break;
+            }
+            update(index.words, normalized.substring(start) + suffix, suggestion, add);
+        }
+    }
+
+    private static void update(Map<String, BookSuggestionDTO> index, String key, BookSuggestionDTO suggestion, boolean add) {
+        if (add) {
+            index.put(key, suggestion);
+        } else {
+            index.remove(key);
+        }
+    }
+
+    private static final class Index {
+        // texto normalizado completo; tem prioridade sobre as palavras do meio do texto
+        private final ConcurrentNavigableMap<String, BookSuggestionDTO> texts = new ConcurrentSkipListMap<>();
+        // texto normalizado a partir da segunda, terceira... palavra
+        private final ConcurrentNavigableMap<String, BookSuggestionDTO> words = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<Long, IndexedBook> indexed = new ConcurrentHashMap<>();
+        // última posição do feed de mudanças já aplicada; -1 antes da primeira carga
+        private final AtomicLong syncedSequence = new AtomicLong(-1);
+    }
+
+    private static final class IndexedBook {
+        private final String title;
+        private final String author;
+        private final Long version;
+
+        private IndexedBook(String title, String author, Long version) {
+            this.title = title;
+            this.author = author;
+            this.version = version;
+        }
+
+        private boolean isNewerThan(IndexedBook other) {
+            return version != null && other.version != null && version > other.version;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.model.entity.BookView;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.repository.BookViewRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Mantém o book_view junto com as escritas: cada alteração é um update na transação de quem grava
+ * o livro ou o empréstimo (MANDATORY), então a leitura nunca vê o livro e o detalhe divergentes.
+ */
+@Service
+public class BookViewServiceImpl implements BookViewService {
+
+    private BookViewRepository repository;
+    private LoanRepository loanRepository;
+
+    public BookViewServiceImpl(BookViewRepository repository, LoanRepository loanRepository) {
+        this.repository = repository;
+        this.loanRepository = loanRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BookView> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookSaved(Long bookId) {
+        repository.insertFromBook(bookId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookChanged(Long bookId) {
+        repository.updateFromBook(bookId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bookDeleted(Long bookId) {
+        repository.deleteByBookId(bookId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loansCreated(String customer, LocalDate loanDate, Collection<Long> bookIds) {
+        repository.loansCreated(customer, loanDate, bookIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void loanReturned(Long bookId, Long loanId) {
+        repository.loanReturned(bookId, loanId);
+    }
+
+    // recalcula a partir dos empréstimos; só para alterações raras, como reabrir um empréstimo devolvido
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void refresh(Long bookId) {
+        repository.findById(bookId).ifPresent(view -> {
+            Optional<Loan> current = loanRepository.findNotReturnedByBookIds(List.of(bookId)).stream()
+                    .max(Comparator.comparing(Loan::getId));
+            view.setCurrentLoanId(current.map(Loan::getId).orElse(null));
+            view.setCurrentBorrower(current.map(Loan::getCustomer).orElse(null));
+            Object[] summary = loanRepository.summarizeByBookId(bookId).get(0);
+            view.setLoanCount(((Number) summary[0]).longValue());
+            view.setLastLoanDate(summary[1] == null ? null : ((Date) summary[1]).toLocalDate());
+        });
+    }
+}
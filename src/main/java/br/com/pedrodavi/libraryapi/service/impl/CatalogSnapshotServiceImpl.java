@@ -0,0 +1,246 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.config.TenantContext;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.BookSuggestionService;
+import br.com.pedrodavi.libraryapi.service.CatalogSnapshotService;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot binário do catálogo (id, versão, isbn, título, autor) em arquivo local, gravado
+ * periodicamente e no shutdown. Na subida, antes da aplicação ficar pronta, o arquivo é lido
+ * por mapeamento em memória para popular as sugestões sem varrer a tabela de livros; depois,
+ * em segundo plano, as mudanças de livros feitas desde o snapshot são aplicadas a partir do
+ * feed de mudanças (change_log).
+ * <p>
+ * Formato: int MAGIC, int FORMAT_VERSION, long criação (epoch ms), long sequência do feed no
+ * início da gravação; depois, por livro: long id, long versão e isbn, título e autor como
+ * int tamanho (-1 para nulo) + bytes UTF-8.
+ * <p>
+ * Cada tenant tem seu arquivo: o configurado para o tenant padrão e, para os demais, o mesmo
+ * nome com o id do tenant como sufixo.
+ * <p>
+ * Um snapshot mais antigo que a retenção do feed (application.changes.retention-days), ou cuja
+ * sequência já foi expurgada do change_log, é ignorado: as mudanças feitas depois dele não
+ * estariam mais no feed para a reconciliação.
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotServiceImpl implements CatalogSnapshotService {
+
+    static final int MAGIC = 0x4C424353; // "LBCS"
+    static final int FORMAT_VERSION = 1;
+    private static final int BATCH_SIZE = 1000;
+    private static final int RECONCILE_CHUNK_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final BookSuggestionService suggestionService;
+    private final ChangeFeedService changeFeedService;
+    private final Tenants tenants;
+    private final Path baseFile;
+    private final Duration retention;
+
+    private final TenantLocal<AtomicLong> loadedSequence = new TenantLocal<>(() -> new AtomicLong(-1));
+
+    public CatalogSnapshotServiceImpl(BookRepository bookRepository,
+                                      BookSuggestionService suggestionService,
+                                      ChangeFeedService changeFeedService,
+                                      Tenants tenants,
+                                      @Value("${application.catalog.snapshot.file:}") String file,
+                                      @Value("${application.changes.retention-days:30}") int retentionDays) {
+        this.bookRepository = bookRepository;
+        this.suggestionService = suggestionService;
+        this.changeFeedService = changeFeedService;
+        this.tenants = tenants;
+        this.baseFile = file.isBlank() ? null : Paths.get(file);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    // ApplicationStartedEvent vem antes do ApplicationReadyEvent, quando a aplicação passa a aceitar tráfego
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        tenants.forEach(() -> {
+            if (loadSnapshot()) {
+                Thread reconcile = new Thread(TenantContext.wrap(this::reconcileChanges),
+                        "catalog-snapshot-reconcile-" + TenantContext.getTenantId());
+                reconcile.setDaemon(true);
+                reconcile.start();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        tenants.forEach(this::writeSnapshot);
+    }
+
+    @Override
+    public synchronized void writeSnapshot() {
+        Path file = file();
+        if (file == null) {
+            return;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            int books = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                // lida antes dos livros: o que mudar durante a gravação é reaplicado na carga
+                out.writeLong(changeFeedService.currentSequence());
+                Pageable pageable = PageRequest.of(0, BATCH_SIZE, Sort.by("id"));
+                Page<Book> page;
+                do {
+                    page = bookRepository.findAll(pageable);
+                    for (Book book : page) {
+                        out.writeLong(book.getId());
+                        out.writeLong(book.getVersion() == null ? 0 : book.getVersion());
+                        writeString(out, book.getIsbn());
+                        writeString(out, book.getTitle());
+                        writeString(out, book.getAuthor());
+                        books++;
+                    }
+                    pageable = page.nextPageable();
+                } while (page.hasNext());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Snapshot do catálogo gravado em {} com {} livros", file, books);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Não foi possível gravar o snapshot do catálogo em {}", file, e);
+        }
+    }
+
+    @Override
+    public boolean loadSnapshot() {
+        Path file = file();
+        if (file == null || !Files.isRegularFile(file)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 24 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                log.warn("Snapshot do catálogo {} inválido, ignorado", file);
+                return false;
+            }
+            long createdAt = buffer.getLong();
+            long sequence = buffer.getLong();
+            // sequência à frente do banco: o snapshot é de outra base (ou de uma base recriada)
+            if (sequence > changeFeedService.currentSequence()) {
+                log.warn("Snapshot do catálogo {} não corresponde ao banco, ignorado", file);
+                return false;
+            }
+            // mudanças posteriores ao snapshot já expurgadas do feed: a carga completa é que vale
+            long firstSequence = changeFeedService.firstSequence();
+            if (createdAt < System.currentTimeMillis() - retention.toMillis()
+                    || (firstSequence > 0 && sequence + 1 < firstSequence)) {
+                log.warn("Snapshot do catálogo {} mais antigo que a retenção do feed de mudanças, ignorado", file);
+                return false;
+            }
+            List<Book> books = new ArrayList<>();
+            while (buffer.hasRemaining()) {
+                books.add(Book.builder().id(buffer.getLong()).version(buffer.getLong())
+                        .isbn(readString(buffer)).title(readString(buffer)).author(readString(buffer)).build());
+            }
+            books.forEach(suggestionService::bookSaved);
+            loadedSequence.get().set(sequence);
+            suggestionService.followChangesFrom(sequence);
+            log.info("Snapshot do catálogo carregado de {}: {} livros em {} ms", file, books.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Não foi possível ler o snapshot do catálogo {}", file, e);
+            return false;
+        }
+    }
+
+    @Override
+    public void reconcileChanges() {
+        long since = loadedSequence.get().get();
+        if (since < 0) {
+            return;
+        }
+        Set<Long> changedBooks = new LinkedHashSet<>();
+        List<ChangeLog> changes;
+        do {
+            changes = changeFeedService.getChanges(since, BATCH_SIZE);
+            for (ChangeLog change : changes) {
+                if (change.getEntityType() == ChangeLog.EntityType.BOOK) {
+                    changedBooks.add(change.getEntityId());
+                }
+                since = change.getId();
+            }
+        } while (!changes.isEmpty());
+
+        List<Long> ids = new ArrayList<>(changedBooks);
+        for (int from = 0; from < ids.size(); from += RECONCILE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RECONCILE_CHUNK_SIZE, ids.size()));
+            Set<Long> missing = new HashSet<>(chunk);
+            for (Book book : bookRepository.findAllById(chunk)) {
+                suggestionService.bookSaved(book);
+                missing.remove(book.getId());
+            }
+            missing.forEach(suggestionService::bookDeleted);
+        }
+        log.info("Snapshot do catálogo reconciliado: {} livros alterados desde o snapshot", ids.size());
+    }
+
+    private Path file() {
+        String tenantId = TenantContext.getTenantId();
+        if (baseFile == null || TenantContext.DEFAULT_TENANT.equals(tenantId)) {
+            return baseFile;
+        }
+        return baseFile.resolveSibling(baseFile.getFileName() + "." + tenantId);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
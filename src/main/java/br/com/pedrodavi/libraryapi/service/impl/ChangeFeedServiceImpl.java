@@ -0,0 +1,148 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.config.TenantContext;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.repository.ChangeLogRepository;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Feed de mudanças de livros e empréstimos. As alterações entram no change_log dentro da
+ * transação de quem escreve, e os ouvintes (long-poll e SSE) são avisados depois do commit.
+ * <p>
+ * O id vem de uma sequência e é reservado no insert, não no commit: uma transação mais lenta
+ * pode tornar visível um id menor depois de um maior. Por isso a leitura para no primeiro
+ * buraco da sequência, a não ser que a alteração seguinte seja mais antiga que o gap-timeout
+ * (buraco de transação desfeita).
+ * <p>
+ * Cada ouvinte pertence ao tenant em que foi registrado: só é avisado dos commits desse
+ * tenant e roda com ele no TenantContext.
+ */
+@Slf4j
+@Service
+public class ChangeFeedServiceImpl implements ChangeFeedService {
+
+    private final ChangeLogRepository repository;
+    private final Duration gapTimeout;
+    private final int retentionDays;
+
+    private final Map<Runnable, String> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService notifier = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-feed-notifier");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChangeFeedServiceImpl(ChangeLogRepository repository,
+                                 @Value("${application.changes.gap-timeout:10s}") Duration gapTimeout,
+                                 @Value("${application.changes.retention-days:30}") int retentionDays) {
+        this.repository = repository;
+        this.gapTimeout = gapTimeout;
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    @Transactional
+    public void record(ChangeLog.EntityType entityType, Long entityId, ChangeLog.Operation operation, Long entityVersion) {
+        repository.save(ChangeLog.builder().entityType(entityType).entityId(entityId).operation(operation)
+                .entityVersion(entityVersion).changedAt(LocalDateTime.now()).build());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    notifyListeners();
+                }
+            });
+        } else {
+            notifyListeners();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChangeLog> getChanges(long since, int limit) {
+        List<ChangeLog> changes = repository.findByIdGreaterThanOrderById(since, PageRequest.of(0, limit));
+        LocalDateTime settled = LocalDateTime.now().minus(gapTimeout);
+        long expected = since + 1;
+        for (int i = 0; i < changes.size(); i++) {
+            ChangeLog change = changes.get(i);
+            if (change.getId() != expected && change.getChangedAt().isAfter(settled)) {
+                return changes.subList(0, i);
+            }
+            expected = change.getId() + 1;
+        }
+        return changes;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long currentSequence() {
+        return repository.findTopByOrderByIdDesc().map(ChangeLog::getId).orElse(0L);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long currentSequence(ChangeLog.EntityType entityType) {
+        return repository.findTopByEntityTypeOrderByIdDesc(entityType).map(ChangeLog::getId).orElse(0L);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long firstSequence() {
+        return repository.findTopByOrderByIdAsc().map(ChangeLog::getId).orElse(0L);
+    }
+
+    @Override
+    public void addListener(Runnable listener) {
+        listeners.put(listener, TenantContext.getTenantId());
+    }
+
+    @Override
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    @Transactional
+    public int purgeOldChanges() {
+        return repository.deleteOlderThan(LocalDateTime.now().minusDays(retentionDays));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        notifier.shutdownNow();
+    }
+
+    private void notifyListeners() {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        String tenantId = TenantContext.getTenantId();
+        // fora da thread de quem escreveu: os ouvintes consultam o banco e escrevem na resposta
+        notifier.execute(() -> listeners.forEach((listener, listenerTenant) -> {
+            if (!listenerTenant.equals(tenantId)) {
+                return;
+            }
+            try {
+                TenantContext.runAs(tenantId, listener);
+            } catch (RuntimeException e) {
+                log.warn("Erro ao notificar ouvinte do feed de mudanças", e);
+            }
+        }));
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import br.com.pedrodavi.libraryapi.model.repository.CustomerRepository;
+import br.com.pedrodavi.libraryapi.service.CustomerService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.Optional;
+
+@Service
+public class CustomerServiceImpl implements CustomerService {
+
+    private CustomerRepository repository;
+
+    public CustomerServiceImpl(CustomerRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Customer> getById(Long id) {
+        return repository.findById(id);
+    }
+
+    @Override
+    @Transactional
+    public Customer getOrCreate(String name, String email) {
+        String normalizedEmail = normalizeEmail(email);
+        Optional<Customer> existing = repository.findByEmail(normalizedEmail);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        // na transação (e na conexão) de quem chamou: se outra requisição criou o mesmo e-mail antes,
+        // o merge não insere nada e a releitura devolve o cliente dela
+        repository.insertIfAbsent(normalizedEmail, name);
+        return repository.findByEmail(normalizedEmail)
+                .orElseThrow(() -> new IllegalStateException("Cliente não encontrado depois do insert: " + normalizedEmail));
+    }
+
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
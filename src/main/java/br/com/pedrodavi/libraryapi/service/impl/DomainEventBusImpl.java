@@ -0,0 +1,195 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.config.TenantContext;
+import br.com.pedrodavi.libraryapi.service.DomainEvent;
+import br.com.pedrodavi.libraryapi.service.DomainEventBus;
+import br.com.pedrodavi.libraryapi.service.DomainEventListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Barramento de eventos sobre um EventRingBuffer. Publicar só preenche um slot já alocado:
+ * os ouvintes rodam cada um na sua thread, em lotes, e nunca na thread da requisição. A
+ * thread ociosa gira um pouco e depois dorme até o próximo evento.
+ */
+@Slf4j
+@Service
+public class DomainEventBusImpl implements DomainEventBus, MeterBinder {
+
+    private static final int SPIN_TRIES = 200;
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final EventRingBuffer ringBuffer;
+    private final int maxBatch;
+    private final List<Consumer> consumers = new ArrayList<>();
+    private final LongAdder failures = new LongAdder();
+    private volatile boolean running = true;
+
+    public DomainEventBusImpl(List<DomainEventListener> listeners,
+                              @Value("${application.events.buffer-size:4096}") int bufferSize,
+                              @Value("${application.events.max-batch:256}") int maxBatch) {
+        this.ringBuffer = new EventRingBuffer(bufferSize, listeners.size());
+        this.maxBatch = maxBatch;
+        for (int i = 0; i < listeners.size(); i++) {
+            DomainEventListener listener = listeners.get(i);
+            Consumer consumer = new Consumer(listener, ringBuffer.consumer(i));
+            consumer.thread = new Thread(consumer, "domain-events-" + listener.getClass().getSimpleName());
+            consumer.thread.setDaemon(true);
+            consumers.add(consumer);
+        }
+        consumers.forEach(consumer -> consumer.thread.start());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("domain.events.published", ringBuffer, buffer -> buffer.claimed() + 1)
+                .description("Eventos de domínio publicados").register(registry);
+        FunctionCounter.builder("domain.events.failures", failures, LongAdder::sum)
+                .description("Exceções lançadas pelos ouvintes de eventos").register(registry);
+        Gauge.builder("domain.events.backlog", ringBuffer, buffer -> buffer.claimed() - buffer.minimumConsumed(buffer.claimed()))
+                .description("Eventos publicados ainda não processados pelo ouvinte mais lento").register(registry);
+    }
+
+    @Override
+    public void publish(DomainEvent.Type type, Long entityId, Long entityVersion) {
+        String tenantId = TenantContext.getTenantId();
+        // rollback não publica nada: os ouvintes só veem o que foi gravado
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishNow(type, entityId, entityVersion, tenantId);
+                }
+            });
+        } else {
+            publishNow(type, entityId, entityVersion, tenantId);
+        }
+    }
+
+    private void publishNow(DomainEvent.Type type, Long entityId, Long entityVersion, String tenantId) {
+        if (consumers.isEmpty() || !running) {
+            return;
+        }
+        long sequence = ringBuffer.next();
+        if (sequence < 0) {
+            log.warn("Barramento de eventos encerrado, evento {} do id {} descartado", type, entityId);
+            return;
+        }
+        ringBuffer.get(sequence).set(type, entityId, entityVersion, tenantId, System.currentTimeMillis());
+        ringBuffer.publish(sequence);
+        for (Consumer consumer : consumers) {
+            if (consumer.sleeping) {
+                consumer.sleeping = false;
+                LockSupport.unpark(consumer.thread);
+            }
+        }
+    }
+
+    @Override
+    public boolean awaitDelivery(long timeoutMillis) {
+        long target = ringBuffer.claimed();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (ringBuffer.minimumConsumed(target) < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(100_000);
+        }
+        return true;
+    }
+
+    // entrega o que já foi publicado e encerra as threads
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Consumer consumer : consumers) {
+            LockSupport.unpark(consumer.thread);
+        }
+        for (Consumer consumer : consumers) {
+            try {
+                consumer.thread.join(5_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        ringBuffer.close();
+    }
+
+    private final class Consumer implements Runnable {
+
+        private final DomainEventListener listener;
+        private final AtomicLong sequence;
+        private Thread thread;
+        private volatile boolean sleeping;
+
+        Consumer(DomainEventListener listener, AtomicLong sequence) {
+            this.listener = listener;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            long next = sequence.get() + 1;
+            int idle = 0;
+            while (true) {
+                long last = ringBuffer.availableFrom(next, maxBatch);
+                if (last < next) {
+                    if (!running) {
+                        return;
+                    }
+                    idle = waitForEvents(next, idle);
+                    continue;
+                }
+                idle = 0;
+                for (long s = next; s <= last; s++) {
+                    deliver(ringBuffer.get(s), s == last);
+                }
+                // libera os slots do lote para os produtores
+                sequence.lazySet(last);
+                next = last + 1;
+            }
+        }
+
+        private void deliver(DomainEvent event, boolean endOfBatch) {
+            TenantContext.setTenantId(event.getTenantId());
+            try {
+                listener.onEvent(event, endOfBatch);
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Erro no ouvinte {} ao processar {}", listener.getClass().getSimpleName(), event, e);
+            } finally {
+                TenantContext.clear();
+            }
+        }
+
+        private int waitForEvents(long next, int idle) {
+            if (idle < SPIN_TRIES) {
+                Thread.onSpinWait();
+                return idle + 1;
+            }
+            // avisa o produtor e confere de novo antes de dormir, senão o aviso poderia se perder
+            sleeping = true;
+            if (ringBuffer.availableFrom(next, 1) < next && running) {
+                LockSupport.parkNanos(MAX_SLEEP_NANOS);
+            }
+            sleeping = false;
+            return idle;
+        }
+    }
+}
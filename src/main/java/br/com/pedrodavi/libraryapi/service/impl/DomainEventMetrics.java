@@ -0,0 +1,56 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.service.DomainEvent;
+import br.com.pedrodavi.libraryapi.service.DomainEventListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores dos eventos de domínio por tipo (domain.events{type=...}) e o atraso de entrega
+ * do último lote. Soma o lote em variáveis da própria thread e só publica no fim dele.
+ */
+@Component
+public class DomainEventMetrics implements DomainEventListener, MeterBinder {
+
+    private static final DomainEvent.Type[] TYPES = DomainEvent.Type.values();
+
+    private final long[] batchCounts = new long[TYPES.length];
+    private final AtomicLongArray counts = new AtomicLongArray(TYPES.length);
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @Override
+    public void onEvent(DomainEvent event, boolean endOfBatch) {
+        batchCounts[event.getType().ordinal()]++;
+        if (endOfBatch) {
+            for (int i = 0; i < batchCounts.length; i++) {
+                if (batchCounts[i] > 0) {
+                    counts.addAndGet(i, batchCounts[i]);
+                    batchCounts[i] = 0;
+                }
+            }
+            lagMillis.set(System.currentTimeMillis() - event.getPublishedAt());
+        }
+    }
+
+    public long getCount(DomainEvent.Type type) {
+        return counts.get(type.ordinal());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (DomainEvent.Type type : TYPES) {
+            FunctionCounter.builder("domain.events", this, metrics -> metrics.getCount(type))
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .description("Eventos de domínio entregues aos ouvintes").register(registry);
+        }
+        Gauge.builder("domain.events.lag", lagMillis, AtomicLong::get).baseUnit("milliseconds")
+                .description("Atraso entre o commit e a entrega do último lote de eventos").register(registry);
+    }
+}
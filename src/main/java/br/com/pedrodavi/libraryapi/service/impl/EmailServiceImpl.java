@@ -1,31 +1,117 @@
 package br.com.pedrodavi.libraryapi.service.impl;
 
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
 import br.com.pedrodavi.libraryapi.service.EmailService;
-import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class EmailServiceImpl implements EmailService {
 
-    @Value("${application.mail.remetent}")
-    private String remetent;
+    private static final String SUBJECT = "Livro com devolução atrasada!";
 
     private final JavaMailSender javaMailSender;
+    private final String remetent;
+    private final MessageTemplate messageTemplate;
+    private final MessageTemplate bookTemplate;
+    private final int chunkSize;
+
+    public EmailServiceImpl(JavaMailSender javaMailSender,
+                            @Value("${application.mail.remetent}") String remetent,
+                            @Value("${application.mail.lateloans.template}") String messageTemplate,
+                            @Value("${application.mail.lateloans.book-template}") String bookTemplate,
+                            @Value("${application.mail.lateloans.chunk-size:50}") int chunkSize) {
+        this.javaMailSender = javaMailSender;
+        this.remetent = remetent;
+        this.messageTemplate = new MessageTemplate(messageTemplate);
+        this.bookTemplate = new MessageTemplate(bookTemplate);
+        this.chunkSize = chunkSize;
+    }
 
     @Override
-    public void sendMails(String messageBodyEmail, List<String> emails) {
-        String[] destinations = emails.toArray(new String[emails.size()]); // transformando lista em array string
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
-        mailMessage.setFrom(remetent); // remetente
-        mailMessage.setSubject("Livro com devolução atrasada!"); // assunto
-        mailMessage.setText(messageBodyEmail); // corpo do email
-        mailMessage.setTo(destinations); // destinatários
-        javaMailSender.send(mailMessage);
+    public void sendLateLoanMails(String messageBodyEmail, List<Loan> lateLoans) {
+        // um email por cliente, com todos os livros atrasados dele
+        Map<String, List<Loan>> loansByEmail = lateLoans.stream()
+                .filter(loan -> loan.getEmail() != null && !loan.getEmail().isBlank())
+                .collect(Collectors.groupingBy(loan -> loan.getEmail().trim().toLowerCase(),
+                        LinkedHashMap::new, Collectors.toList()));
+
+        LocalDate today = LocalDate.now();
+        List<MimeMessage> chunk = new ArrayList<>(chunkSize);
+        MailException failure = null;
+        for (Map.Entry<String, List<Loan>> entry : loansByEmail.entrySet()) {
+            chunk.add(createMessage(entry.getKey(), entry.getValue(), messageBodyEmail, today));
+            if (chunk.size() == chunkSize) {
+                failure = send(chunk, failure);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            failure = send(chunk, failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // o lote inteiro é enviado na mesma conexão SMTP; a falha de um lote não impede os demais
+    private MailException send(List<MimeMessage> chunk, MailException failure) {
+        try {
+            javaMailSender.send(chunk.toArray(new MimeMessage[0]));
+        } catch (MailException ex) {
+            failure = failure == null ? ex : failure;
+        }
+        chunk.clear();
+        return failure;
+    }
+
+    private MimeMessage createMessage(String email, List<Loan> loans, String messageBodyEmail, LocalDate today) {
+        StringBuilder books = new StringBuilder();
+        Map<String, Object> values = new HashMap<>();
+        for (Loan loan : loans) {
+            Book book = loan.getBook();
+            values.put("title", book != null ? book.getTitle() : null);
+            values.put("isbn", book != null ? book.getIsbn() : null);
+            values.put("days", daysOverdue(loan.getLoanDate(), today));
+            bookTemplate.renderTo(books, values);
+        }
+        values.clear();
+        values.put("customer", loans.get(0).getCustomer());
+        values.put("message", messageBodyEmail);
+        values.put("books", books);
+
+        MimeMessage mimeMessage = javaMailSender.createMimeMessage();
+        try {
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "UTF-8");
+            helper.setFrom(remetent); // remetente
+            helper.setTo(email); // destinatário único, sem expor os demais
+            helper.setSubject(SUBJECT);
+            helper.setText(messageTemplate.render(values));
+        } catch (MessagingException ex) {
+            throw new MailPreparationException(ex);
+        }
+        return mimeMessage;
+    }
+
+    private static long daysOverdue(LocalDate loanDate, LocalDate today) {
+        if (loanDate == null) {
+            return 0;
+        }
+        return Math.max(0, ChronoUnit.DAYS.between(loanDate.plusDays(LoanServiceImpl.LOAN_DAYS), today));
     }
 }
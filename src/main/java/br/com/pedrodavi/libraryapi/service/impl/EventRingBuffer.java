@@ -0,0 +1,110 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.service.DomainEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Ring buffer de eventos com slots pré-alocados, vários produtores e um cursor por consumidor.
+ * O produtor reserva a próxima sequência num contador atômico, preenche o slot e o marca como
+ * publicado gravando a sequência em published; o consumidor lê de uma vez a faixa contínua de
+ * slots publicados e avança o seu cursor, o que libera os slots para novas voltas. Com o buffer
+ * cheio, o produtor espera o consumidor mais lento: nenhum evento é descartado.
+ */
+final class EventRingBuffer {
+
+    private static final long FULL_WAIT_NANOS = 50_000;
+
+    private final DomainEvent[] slots;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLong[] consumers;
+    // menor cursor visto na última espera: evita ler os cursores a cada publicação
+    private volatile long cachedMinimum = -1;
+    private volatile boolean closed;
+
+    EventRingBuffer(int size, int consumerCount) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.slots = new DomainEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new DomainEvent();
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.consumers = new AtomicLong[consumerCount];
+        for (int i = 0; i < consumerCount; i++) {
+            consumers[i] = new AtomicLong(-1);
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Reserva a próxima sequência, esperando espaço se o buffer estiver cheio.
+     *
+     * @return a sequência, ou -1 se o buffer foi fechado durante a espera
+     */
+    long next() {
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > cachedMinimum) {
+            long minimum;
+            while (wrapPoint > (minimum = minimumConsumed(sequence))) {
+                if (closed) {
+                    return -1;
+                }
+                LockSupport.parkNanos(FULL_WAIT_NANOS);
+            }
+            cachedMinimum = minimum;
+        }
+        return sequence;
+    }
+
+    DomainEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Última sequência da faixa contínua publicada a partir de from, com no máximo maxBatch
+     * eventos; from - 1 quando ainda não há nada.
+     */
+    long availableFrom(long from, int maxBatch) {
+        long last = from - 1;
+        long limit = from + maxBatch - 1;
+        while (last < limit && published.get((int) (last + 1) & mask) == last + 1) {
+            last++;
+        }
+        return last;
+    }
+
+    // cursor do consumidor: última sequência já processada
+    AtomicLong consumer(int index) {
+        return consumers[index];
+    }
+
+    long claimed() {
+        return claimed.get();
+    }
+
+    long minimumConsumed(long ceiling) {
+        long minimum = ceiling;
+        for (AtomicLong consumer : consumers) {
+            minimum = Math.min(minimum, consumer.get());
+        }
+        return minimum;
+    }
+
+    void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,82 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Cálculo das multas em colunas de primitivos: o empréstimo i vence no dia dueDays[i]
+ * (LocalDate.toEpochDay) e paga dailyRates[i] centavos por dia de atraso. Os empréstimos
+ * do cliente c ocupam a faixa [customerStart[c], customerStart[c + 1]), então cada tarefa
+ * do fork-join soma clientes inteiros e escreve só nas suas posições, sem sincronização.
+ */
+final class FineEngine {
+
+    // empréstimos por tarefa abaixo do qual não compensa dividir
+    static final int TASK_LOANS = 16_384;
+
+    private FineEngine() {
+    }
+
+    static final class Totals {
+        final long[] balances;
+        final int[] overdueLoans;
+
+        private Totals(int customers) {
+            this.balances = new long[customers];
+            this.overdueLoans = new int[customers];
+        }
+    }
+
+    static Totals compute(ForkJoinPool pool, int today, int[] dueDays, long[] dailyRates, int[] customerStart) {
+        int customers = customerStart.length - 1;
+        Totals totals = new Totals(customers);
+        if (customers > 0) {
+            pool.invoke(new SumCustomers(today, dueDays, dailyRates, customerStart, totals, 0, customers));
+        }
+        return totals;
+    }
+
+    private static final class SumCustomers extends RecursiveAction {
+
+        private final int today;
+        private final int[] dueDays;
+        private final long[] dailyRates;
+        private final int[] customerStart;
+        private final Totals totals;
+        private final int from;
+        private final int to;
+
+        SumCustomers(int today, int[] dueDays, long[] dailyRates, int[] customerStart, Totals totals, int from, int to) {
+            this.today = today;
+            this.dueDays = dueDays;
+            this.dailyRates = dailyRates;
+            this.customerStart = customerStart;
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1 && customerStart[to] - customerStart[from] > TASK_LOANS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new SumCustomers(today, dueDays, dailyRates, customerStart, totals, from, middle),
+                        new SumCustomers(today, dueDays, dailyRates, customerStart, totals, middle, to));
+                return;
+            }
+            for (int c = from; c < to; c++) {
+                long balance = 0;
+                int overdue = 0;
+                for (int i = customerStart[c]; i < customerStart[c + 1]; i++) {
+                    int lateDays = today - dueDays[i];
+                    if (lateDays > 0) {
+                        balance += lateDays * dailyRates[i];
+                        overdue++;
+                    }
+                }
+                totals.balances[c] = balance;
+                totals.overdueLoans[c] = overdue;
+            }
+        }
+    }
+}
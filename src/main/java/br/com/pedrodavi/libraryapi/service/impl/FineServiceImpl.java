@@ -0,0 +1,128 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.api.dto.CustomerBalanceDTO;
+import br.com.pedrodavi.libraryapi.config.StartupConfig;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.FineService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Multas por atraso calculadas em lote: uma consulta traz os empréstimos em aberto já
+ * vencidos, ordenados por cliente, e o FineEngine soma os saldos em paralelo. O resultado
+ * fica em memória, um por tenant, e é trocado inteiro a cada cálculo; o saldo consultado
+ * é o do último cálculo (computedAt), não o do instante da consulta.
+ */
+@Service
+public class FineServiceImpl implements FineService {
+
+    private final LoanRepository repository;
+    private final Tenants tenants;
+    private final long dailyRateCents;
+    private final ForkJoinPool pool;
+    private final TenantLocal<AtomicReference<Balances>> balances = new TenantLocal<>(AtomicReference::new);
+
+    public FineServiceImpl(LoanRepository repository, Tenants tenants,
+                           @Value("${application.fines.daily-rate:1.00}") BigDecimal dailyRate,
+                           @Value("${application.fines.parallelism:0}") int parallelism) {
+        this.repository = repository;
+        this.tenants = tenants;
+        this.dailyRateCents = dailyRate.movePointRight(2).longValueExact();
+        // 0 usa o pool comum; um valor menor limita os núcleos ocupados pelo cálculo
+        this.pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != ForkJoinPool.commonPool()) {
+            pool.shutdownNow();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(StartupConfig.RECONCILE_ORDER)
+    public void recomputeTenants() {
+        tenants.forEach(this::recompute);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void recompute() {
+        LocalDate today = LocalDate.now();
+        List<Object[]> rows = repository.findOverdueLoanDates(today.minusDays(LoanServiceImpl.LOAN_DAYS));
+
+        // colunas na ordem da consulta; cada e-mail novo abre a faixa do próximo cliente
+        int[] dueDays = new int[rows.size()];
+        long[] dailyRates = new long[rows.size()];
+        int[] customerStart = new int[rows.size() + 1];
+        Map<String, Integer> customers = new HashMap<>();
+        String current = null;
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            dueDays[i] = (int) ((LocalDate) row[0]).plusDays(LoanServiceImpl.LOAN_DAYS).toEpochDay();
+            dailyRates[i] = dailyRateCents;
+            String email = (String) row[1];
+            if (!email.equals(current)) {
+                customerStart[customers.size()] = i;
+                customers.put(email, customers.size());
+                current = email;
+            }
+        }
+        customerStart[customers.size()] = rows.size();
+
+        FineEngine.Totals totals = FineEngine.compute(pool, (int) today.toEpochDay(), dueDays, dailyRates,
+                Arrays.copyOf(customerStart, customers.size() + 1));
+        balances.get().set(new Balances(customers, totals, LocalDateTime.now()));
+    }
+
+    @Override
+    public CustomerBalanceDTO getBalance(String email) {
+        AtomicReference<Balances> reference = balances.get();
+        Balances current = reference.get();
+        if (current == null) {
+            // tenant ainda sem cálculo: o primeiro acesso calcula e os demais aguardam
+            synchronized (reference) {
+                if (reference.get() == null) {
+                    recompute();
+                }
+                current = reference.get();
+            }
+        }
+        Integer index = current.customers.get(email.toLowerCase(Locale.ROOT));
+        return CustomerBalanceDTO.builder()
+                .email(email)
+                .balance(BigDecimal.valueOf(index == null ? 0 : current.totals.balances[index], 2))
+                .overdueLoans(index == null ? 0 : current.totals.overdueLoans[index])
+                .computedAt(current.computedAt)
+                .build();
+    }
+
+    private static final class Balances {
+        private final Map<String, Integer> customers;
+        private final FineEngine.Totals totals;
+        private final LocalDateTime computedAt;
+
+        private Balances(Map<String, Integer> customers, FineEngine.Totals totals, LocalDateTime computedAt) {
+            this.customers = customers;
+            this.totals = totals;
+            this.computedAt = computedAt;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.model.repository.LoanHistoryRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.LoanArchiveService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Move empréstimos devolvidos mais antigos que application.loans.archive.min-age-days da tabela
+ * loan para loan_history, em lotes com uma transação cada, para que a tabela quente fique só
+ * com os empréstimos em aberto e recentes.
+ */
+@Service
+public class LoanArchiveServiceImpl implements LoanArchiveService {
+
+    private final LoanRepository repository;
+    private final LoanHistoryRepository historyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int minAgeDays;
+    private final int batchSize;
+
+    public LoanArchiveServiceImpl(LoanRepository repository,
+                                  LoanHistoryRepository historyRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${application.loans.archive.min-age-days:90}") int minAgeDays,
+                                  @Value("${application.loans.archive.batch-size:500}") int batchSize) {
+        this.repository = repository;
+        this.historyRepository = historyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.minAgeDays = minAgeDays;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public int archiveReturnedLoans() {
+        LocalDate before = LocalDate.now().minusDays(minAgeDays);
+        int total = 0;
+        int archived;
+        do {
+            archived = transactionTemplate.execute(status -> archiveBatch(before));
+            total += archived;
+        } while (archived == batchSize);
+        return total;
+    }
+
+    private int archiveBatch(LocalDate before) {
+        List<Long> ids = repository.findReturnedIdsBefore(before, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        historyRepository.archive(ids, LocalDate.now());
+        repository.deleteByIds(ids);
+        return ids.size();
+    }
+}
@@ -1,60 +1,229 @@
 package br.com.pedrodavi.libraryapi.service.impl;
 
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutResultDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanFilterDTO;
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import br.com.pedrodavi.libraryapi.exception.CheckoutException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
 import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import br.com.pedrodavi.libraryapi.service.CustomerService;
+import br.com.pedrodavi.libraryapi.service.DomainEvent;
+import br.com.pedrodavi.libraryapi.service.DomainEventBus;
 import br.com.pedrodavi.libraryapi.service.LoanService;
+import br.com.pedrodavi.libraryapi.service.LoanStatisticsService;
+import br.com.pedrodavi.libraryapi.service.ReservationService;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    public static final int LOAN_DAYS = 4; // prazo pra entrega do livro
+    public static final int CHECKOUT_MAX_BOOKS = 50;
+
     private LoanRepository repository;
+    private LoanStatisticsService statisticsService;
+    private CustomerService customerService;
+    private ChangeFeedService changeFeedService;
+    private ReservationService reservationService;
+    private BookRepository bookRepository;
+    private BookViewService bookViewService;
+    private DomainEventBus eventBus;
 
-    public LoanServiceImpl(LoanRepository repository) {
+    public LoanServiceImpl(LoanRepository repository, LoanStatisticsService statisticsService,
+                           CustomerService customerService, ChangeFeedService changeFeedService,
+                           ReservationService reservationService, BookRepository bookRepository,
+                           BookViewService bookViewService, DomainEventBus eventBus) {
         this.repository = repository;
+        this.statisticsService = statisticsService;
+        this.customerService = customerService;
+        this.changeFeedService = changeFeedService;
+        this.reservationService = reservationService;
+        this.bookRepository = bookRepository;
+        this.bookViewService = bookViewService;
+        this.eventBus = eventBus;
     }
 
     @Override
+    @Transactional
     public Loan save(Loan loan) {
+        // trava o livro como o checkout e a fila de reservas: sem isso, dois empréstimos simultâneos passam na checagem
+        if (loan.getBook() != null && loan.getBook().getId() != null) {
+            bookRepository.findByIdForUpdate(loan.getBook().getId());
+        }
         if(repository.existsByBookAndNotReturned(loan.getBook())){
             throw new BusinessException("Book already loaned");
         }
-        return repository.save(loan);
+        if(loan.getCustomerAccount() == null && loan.getEmail() != null && !loan.getEmail().isBlank()){
+            loan.setCustomerAccount(customerService.getOrCreate(loan.getCustomer(), loan.getEmail()));
+        }
+        Loan savedLoan = repository.save(loan);
+        bookViewService.loansCreated(savedLoan.getCustomer(), savedLoan.getLoanDate(), List.of(savedLoan.getBook().getId()));
+        statisticsService.loanCreated(savedLoan);
+        changeFeedService.record(ChangeLog.EntityType.LOAN, savedLoan.getId(), ChangeLog.Operation.CREATED, savedLoan.getVersion());
+        eventBus.publish(DomainEvent.Type.LOAN_CREATED, savedLoan.getId(), savedLoan.getVersion());
+        return savedLoan;
     }
 
     @Override
+    @Transactional
+    public List<CheckoutResultDTO> checkout(String customer, String email, List<String> isbns) {
+        List<String> distinctIsbns = isbns.stream().distinct().collect(Collectors.toList());
+        if (distinctIsbns.size() > CHECKOUT_MAX_BOOKS) {
+            throw new BusinessException("Máximo de " + CHECKOUT_MAX_BOOKS + " livros por checkout.");
+        }
+        // uma consulta trava os livros e outra confere os empréstimos ativos de todos eles
+        Map<String, Book> books = bookRepository.findByIsbnInForUpdate(distinctIsbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity(), (first, other) -> first));
+        Set<Long> bookIds = books.values().stream().map(Book::getId).collect(Collectors.toSet());
+        Set<Long> loanedBookIds = bookIds.isEmpty()
+                ? Collections.emptySet()
+                : new HashSet<>(repository.findNotReturnedBookIds(bookIds));
+        if (books.size() < distinctIsbns.size() || !loanedBookIds.isEmpty()) {
+            // tudo ou nada: nada foi gravado ainda, então basta recusar
+            throw new CheckoutException(distinctIsbns.stream()
+                    .map(isbn -> rejected(isbn, books.get(isbn), loanedBookIds))
+                    .collect(Collectors.toList()));
+        }
+
+        Customer account = customerService.getOrCreate(customer, email);
+        LocalDate loanDate = LocalDate.now();
+        repository.insertLoans(customer, email, account.getId(), loanDate, bookIds);
+        bookViewService.loansCreated(customer, loanDate, bookIds);
+        Map<Long, Loan> loans = new HashMap<>();
+        for (Loan loan : repository.findNotReturnedByBookIds(bookIds)) {
+            loans.put(loan.getBook().getId(), loan);
+            statisticsService.loanCreated(loan);
+            changeFeedService.record(ChangeLog.EntityType.LOAN, loan.getId(), ChangeLog.Operation.CREATED, loan.getVersion());
+            eventBus.publish(DomainEvent.Type.LOAN_CREATED, loan.getId(), loan.getVersion());
+        }
+        return distinctIsbns.stream()
+                .map(isbn -> CheckoutResultDTO.builder()
+                        .isbn(isbn)
+                        .status(CheckoutResultDTO.LOANED)
+                        .loanId(loans.get(books.get(isbn).getId()).getId())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private CheckoutResultDTO rejected(String isbn, Book book, Set<Long> loanedBookIds) {
+        String status = book == null ? CheckoutResultDTO.NOT_FOUND
+                : loanedBookIds.contains(book.getId()) ? CheckoutResultDTO.ALREADY_LOANED
+                : CheckoutResultDTO.ROLLED_BACK;
+        return CheckoutResultDTO.builder().isbn(isbn).status(status).build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
     @Override
+    @Transactional
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        // estado anterior lido antes do save: LOAN_RETURNED só na passagem para devolvido
+        boolean wasReturned = loan.getId() != null && Boolean.TRUE.equals(repository.findReturnedById(loan.getId()));
+        Loan updatedLoan = repository.save(loan);
+        if (updatedLoan.getBook() != null) {
+            bookViewService.refresh(updatedLoan.getBook().getId());
+        }
+        statisticsService.loanUpdated(updatedLoan);
+        changeFeedService.record(ChangeLog.EntityType.LOAN, updatedLoan.getId(), ChangeLog.Operation.UPDATED, updatedLoan.getVersion());
+        if (!wasReturned && Boolean.TRUE.equals(updatedLoan.getReturned())) {
+            eventBus.publish(DomainEvent.Type.LOAN_RETURNED, updatedLoan.getId(), updatedLoan.getVersion());
+        }
+        return updatedLoan;
     }
 
     @Override
+    @Transactional
+    public boolean updateReturned(Long id, Boolean returned, Long version) {
+        boolean returning = Boolean.TRUE.equals(returned);
+        int updated = version == null
+                ? repository.updateReturned(id, returning)
+                : repository.updateReturned(id, returning, version);
+        if (updated == 0) {
+            // nenhuma linha alterada: só aqui consulta para diferenciar repetição, conflito e inexistente
+            Optional<Loan> current = repository.findById(id);
+            if (current.isEmpty()) {
+                return false;
+            }
+            // o empréstimo já está nesse estado (pedido repetido): nada de fila, book_view ou eventos de novo
+            if (returning == Boolean.TRUE.equals(current.get().getReturned())) {
+                return true;
+            }
+            throw new ObjectOptimisticLockingFailureException(Loan.class, id);
+        }
+        // desfazer a devolução volta a contar o empréstimo como ativo no dia em que foi feito
+        LocalDate loanDate = returning ? null : repository.findLoanDateById(id);
+        statisticsService.loanUpdated(Loan.builder().id(id).returned(returning).loanDate(loanDate).build());
+        changeFeedService.record(ChangeLog.EntityType.LOAN, id, ChangeLog.Operation.UPDATED, version == null ? null : version + 1);
+        Long bookId = repository.findBookIdById(id);
+        if (returning) {
+            bookViewService.loanReturned(bookId, id);
+            eventBus.publish(DomainEvent.Type.LOAN_RETURNED, id, version == null ? null : version + 1);
+            // o livro devolvido vai direto para o primeiro da fila, na mesma transação
+            reservationService.pollNext(bookId).ifPresent(this::loanReserved);
+        } else {
+            bookViewService.refresh(bookId);
+        }
+        return true;
+    }
+
+    // o novo empréstimo entra no feed de mudanças, que avisa quem acompanha /api/changes
+    private void loanReserved(Reservation reservation) {
+        save(Loan.builder()
+                .book(reservation.getBook())
+                .customer(reservation.getCustomer())
+                .email(reservation.getEmail())
+                .loanDate(LocalDate.now())
+                .build());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Page<Loan> find(LoanFilterDTO filter, Pageable pageable) {
         return repository.findByBookIsbnOrCustomer(filter.getIsbn(), filter.getCustomer(), pageable);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+        return repository.findByBook(book, withoutSort(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Loan> getLoansByCustomer(Customer customer, Pageable pageable) {
+        return repository.findByCustomerAccount(customer, withoutSort(pageable));
+    }
+
+    // as consultas nativas com o histórico já ordenam; o sort do cliente chegaria ao SQL como nome de propriedade
+    private static Pageable withoutSort(Pageable pageable) {
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Loan> getAllLateLoans() {
-        final Integer loanDays = 4; // prazo pra entrega do livro
-        LocalDate threeDaysAgo = LocalDate.now().minusDays(loanDays); // 3 dias atrás
+        LocalDate threeDaysAgo = LocalDate.now().minusDays(LOAN_DAYS); // 3 dias atrás
         return repository.findByLoanDateLessThanAndNotReturned(threeDaysAgo);
     }
 }
@@ -0,0 +1,190 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.api.dto.LoanStatisticsDTO;
+import br.com.pedrodavi.libraryapi.api.dto.TopBookDTO;
+import br.com.pedrodavi.libraryapi.config.StartupConfig;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.repository.LoanHistoryRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.LoanStatisticsService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Estatísticas de empréstimos mantidas em memória e atualizadas no fluxo de escrita,
+ * para que o endpoint de estatísticas não precise de consultas agregadas no banco.
+ * Os contadores são reconciliados com o banco quando a aplicação sobe, um conjunto por tenant.
+ */
+@Service
+public class LoanStatisticsServiceImpl implements LoanStatisticsService {
+
+    private final LoanRepository repository;
+    private final LoanHistoryRepository historyRepository;
+    private final int historyDays;
+    private final int topBooks;
+    private final Tenants tenants;
+    private final TenantLocal<Counters> counters;
+
+    public LoanStatisticsServiceImpl(LoanRepository repository,
+                                     LoanHistoryRepository historyRepository,
+                                     @Value("${application.stats.history-days:30}") int historyDays,
+                                     @Value("${application.stats.top-books:10}") int topBooks,
+                                     Tenants tenants) {
+        this.repository = repository;
+        this.historyRepository = historyRepository;
+        this.historyDays = historyDays;
+        this.topBooks = topBooks;
+        this.tenants = tenants;
+        // monitora mais chaves do que o top exibido para reduzir o erro da aproximação
+        this.counters = new TenantLocal<>(() -> new Counters(topBooks * 4));
+    }
+
+    // os contadores só mudam depois do commit: um rollback não deixa empréstimo contado até a próxima reconciliação
+    @Override
+    public void loanCreated(Loan loan) {
+        Counters c = counters.get();
+        Long id = loan.getId();
+        LocalDate loanDate = loan.getLoanDate();
+        Book book = loan.getBook();
+        Long bookId = book == null ? null : book.getId();
+        String isbn = book == null ? null : book.getIsbn();
+        boolean returned = Boolean.TRUE.equals(loan.getReturned());
+        afterCommit(() -> {
+            c.totalLoans.increment();
+            if (loanDate != null) {
+                counter(c.loansPerDay, loanDate).increment();
+                // descarta dias fora da janela aqui, na escrita: a consulta das estatísticas só lê
+                c.loansPerDay.headMap(LocalDate.now().minusDays(historyDays)).clear();
+            }
+            if (bookId != null) {
+                c.topBooksCounter.offer(bookId, isbn);
+            }
+            if (!returned) {
+                markActive(c, id, loanDate);
+            }
+        });
+    }
+
+    @Override
+    public void loanUpdated(Loan loan) {
+        Counters c = counters.get();
+        Long id = loan.getId();
+        LocalDate loanDate = loan.getLoanDate();
+        boolean returned = Boolean.TRUE.equals(loan.getReturned());
+        afterCommit(() -> {
+            if (returned) {
+                LocalDate activeSince = id == null ? null : c.activeLoans.remove(id);
+                if (activeSince != null) {
+                    counter(c.activeLoansPerDay, activeSince).decrement();
+                }
+            } else {
+                markActive(c, id, loanDate);
+            }
+        });
+    }
+
+    @Override
+    public LoanStatisticsDTO getStatistics() {
+        Counters c = counters.get();
+        LocalDate today = LocalDate.now();
+        LocalDate lateLimit = today.minusDays(LoanServiceImpl.LOAN_DAYS);
+        long overdue = c.activeLoansPerDay.headMap(lateLimit, true).values().stream().mapToLong(LongAdder::sum).sum();
+
+        Map<LocalDate, Long> perDay = new TreeMap<>();
+        c.loansPerDay.tailMap(today.minusDays(historyDays), true)
+                .forEach((day, count) -> perDay.put(day, count.sum()));
+
+        List<TopBookDTO> top = c.topBooksCounter.top(topBooks).stream()
+                .map(e -> TopBookDTO.builder().bookId(e.key).isbn(e.label).loans(e.count).build())
+                .collect(Collectors.toList());
+
+        return LoanStatisticsDTO.builder()
+                .totalLoans(c.totalLoans.sum())
+                .activeLoans((long) c.activeLoans.size())
+                .overdueLoans(overdue)
+                .loansPerDay(perDay)
+                .topBooks(top)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(StartupConfig.RECONCILE_ORDER)
+    public void reconcileTenants() {
+        tenants.forEach(this::reconcile);
+    }
+
+    @Override
+    public void reconcile() {
+        Counters c = counters.get();
+        c.totalLoans.reset();
+        c.loansPerDay.clear();
+        c.activeLoans.clear();
+        c.activeLoansPerDay.clear();
+        c.topBooksCounter.clear();
+
+        c.totalLoans.add(repository.count() + historyRepository.count());
+        repository.countLoansPerDaySince(LocalDate.now().minusDays(historyDays))
+                .forEach(row -> counter(c.loansPerDay, (LocalDate) row[0]).add((Long) row[1]));
+        repository.findNotReturnedLoanDates()
+                .forEach(row -> markActive(c, (Long) row[0], (LocalDate) row[1]));
+        // contagens exatas: entram sem passar pela substituição do Space-Saving
+        repository.countLoansPerBook(topBooks * 4).forEach(row -> c.topBooksCounter.seed(
+                ((Number) row[0]).longValue(), (String) row[1], ((Number) row[2]).longValue()));
+    }
+
+    private void markActive(Counters c, Long id, LocalDate loanDate) {
+        if (id == null || loanDate == null) {
+            return;
+        }
+        if (c.activeLoans.putIfAbsent(id, loanDate) == null) {
+            counter(c.activeLoansPerDay, loanDate).increment();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static LongAdder counter(ConcurrentMap<LocalDate, LongAdder> map, LocalDate day) {
+        return map.computeIfAbsent(day, d -> new LongAdder());
+    }
+
+    private static final class Counters {
+        private final LongAdder totalLoans = new LongAdder();
+        private final ConcurrentNavigableMap<LocalDate, LongAdder> loansPerDay = new ConcurrentSkipListMap<>();
+        private final ConcurrentMap<Long, LocalDate> activeLoans = new ConcurrentHashMap<>();
+        private final ConcurrentNavigableMap<LocalDate, LongAdder> activeLoansPerDay = new ConcurrentSkipListMap<>();
+        private final TopKCounter<Long> topBooksCounter;
+
+        private Counters(int monitoredBooks) {
+            this.topBooksCounter = new TopKCounter<>(monitoredBooks);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template de texto com marcadores no formato {nome}. O texto é quebrado em trechos fixos
+ * e marcadores uma única vez na construção, então renderizar é só concatenar.
+ */
+class MessageTemplate {
+
+    private final String[] literals;
+    private final String[] names;
+
+    MessageTemplate(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int start = 0;
+        int open;
+        while ((open = template.indexOf('{', start)) >= 0) {
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            literals.add(template.substring(start, open));
+            names.add(template.substring(open + 1, close));
+            start = close + 1;
+        }
+        literals.add(template.substring(start));
+        this.literals = literals.toArray(new String[0]);
+        this.names = names.toArray(new String[0]);
+    }
+
+    void renderTo(StringBuilder out, Map<String, ?> values) {
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+            Object value = values.get(names[i]);
+            out.append(value != null ? value : "");
+        }
+        out.append(literals[names.length]);
+    }
+
+    String render(Map<String, ?> values) {
+        StringBuilder out = new StringBuilder();
+        renderTo(out, values);
+        return out.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.model.repository.ReservationRepository;
+import br.com.pedrodavi.libraryapi.service.ReservationService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Fila FIFO de reservas por livro. Reserva e devolução do mesmo livro travam a linha do livro,
+ * então uma reserva nunca fica na fila de um livro que acabou de ser devolvido: ou a devolução
+ * já vê a reserva, ou a reserva já vê o livro livre e é recusada.
+ */
+@Service
+public class ReservationServiceImpl implements ReservationService {
+
+    private ReservationRepository repository;
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+
+    public ReservationServiceImpl(ReservationRepository repository, BookRepository bookRepository,
+                                  LoanRepository loanRepository) {
+        this.repository = repository;
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+    }
+
+    @Override
+    @Transactional
+    public Reservation reserve(Reservation reservation) {
+        Book book = bookRepository.findByIdForUpdate(reservation.getBook().getId())
+                .orElseThrow(() -> new BusinessException("Book not found"));
+        if (!loanRepository.existsByBookAndNotReturned(book)) {
+            throw new BusinessException("Book not loaned");
+        }
+        if (repository.existsByBookAndEmailIgnoreCase(book, reservation.getEmail())) {
+            throw new BusinessException("Book already reserved for customer");
+        }
+        reservation.setBook(book);
+        reservation.setReservedAt(LocalDateTime.now());
+        return repository.save(reservation);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getPosition(Reservation reservation) {
+        return repository.countByBookAndIdLessThanEqual(reservation.getBook(), reservation.getId());
+    }
+
+    @Override
+    @Transactional
+    public Optional<Reservation> pollNext(Long bookId) {
+        Optional<Reservation> next = bookRepository.findByIdForUpdate(bookId)
+                .flatMap(repository::findFirstByBookOrderById);
+        next.ifPresent(repository::delete);
+        return next;
+    }
+}
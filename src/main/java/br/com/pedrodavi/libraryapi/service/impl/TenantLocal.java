@@ -0,0 +1,25 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.config.TenantContext;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Estado em memória separado por tenant, como um ThreadLocal cuja chave é o tenant da
+ * thread atual: cada tenant ganha sua instância no primeiro acesso.
+ */
+final class TenantLocal<T> {
+
+    private final ConcurrentMap<String, T> values = new ConcurrentHashMap<>();
+    private final Supplier<T> initial;
+
+    TenantLocal(Supplier<T> initial) {
+        this.initial = initial;
+    }
+
+    T get() {
+        return values.computeIfAbsent(TenantContext.getTenantId(), tenantId -> initial.get());
+    }
+}
@@ -0,0 +1,73 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contador aproximado dos K itens mais frequentes (algoritmo Space-Saving).
+ * Mantém no máximo {@code capacity} chaves monitoradas, então a memória é fixa
+ * independente da quantidade de chaves distintas.
+ */
+class TopKCounter<K> {
+
+    private final int capacity;
+    private final Map<K, Entry<K>> entries;
+
+    TopKCounter(int capacity) {
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    synchronized void offer(K key, String label) {
+        add(key, label, 1);
+    }
+
+    synchronized void add(K key, String label, long count) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null) {
+            entry.count += count;
+            return;
+        }
+        if (entries.size() < capacity) {
+            entries.put(key, new Entry<>(key, label, count));
+            return;
+        }
+        // substitui a chave de menor contagem, herdando a contagem dela
+        Entry<K> min = entries.values().stream().min(Comparator.comparingLong(e -> e.count)).get();
+        entries.remove(min.key);
+        entries.put(key, new Entry<>(key, label, min.count + count));
+    }
+
+    // carga inicial com contagens exatas, as maiores primeiro: além da capacidade é descartada
+    synchronized void seed(K key, String label, long count) {
+        if (entries.size() < capacity) {
+            entries.putIfAbsent(key, new Entry<>(key, label, count));
+        }
+    }
+
+    synchronized List<Entry<K>> top(int k) {
+        List<Entry<K>> result = new ArrayList<>();
+        entries.values().forEach(e -> result.add(new Entry<>(e.key, e.label, e.count)));
+        result.sort(Comparator.comparingLong((Entry<K> e) -> e.count).reversed());
+        return result.size() > k ? result.subList(0, k) : result;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    static class Entry<K> {
+        final K key;
+        final String label;
+        long count;
+
+        Entry(K key, String label, long count) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package br.com.pedrodavi.libraryapi.service.impl;
+
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
+import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.LoanFilterDTO;
+import br.com.pedrodavi.libraryapi.config.StartupConfig;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.BookService;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
+import br.com.pedrodavi.libraryapi.service.LoanService;
+import br.com.pedrodavi.libraryapi.service.WarmUpReport;
+import br.com.pedrodavi.libraryapi.service.WarmUpService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.modelmapper.ModelMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Aquece os caminhos quentes antes da instância ficar pronta: o listener roda dentro do
+ * ApplicationReadyEvent e o Spring só publica ReadinessState.ACCEPTING_TRAFFIC (o
+ * /actuator/health/readiness) depois que ele termina.
+ * <p>
+ * Cada iteração faz o que uma busca de livros faz (consultas do repositório, mapeamento para
+ * DTO, serialização da página em JSON e no formato enxuto) e valida um BookDTO numa transação
+ * curta marcada para rollback: os livros sintéticos (isbn WARMUP-*) são gravados nela direto pelo
+ * repositório e nunca ficam visíveis para outras transações nem para outras instâncias. Não
+ * passam pelo feed de mudanças, cuja sequência ficaria cheia de buracos de transações desfeitas.
+ * Em seguida, uma busca no catálogo existente numa transação somente leitura aquece o caminho
+ * do cache de buscas.
+ * <p>
+ * A duração máxima vale para o aquecimento inteiro, somando todos os tenants.
+ */
+@Slf4j
+@Service
+public class WarmUpServiceImpl implements WarmUpService {
+
+    private static final int SYNTHETIC_BOOKS = 20;
+    private static final String SYNTHETIC_PREFIX = "WARMUP-";
+
+    private final BookRepository bookRepository;
+    private final BookService bookService;
+    private final LoanService loanService;
+    private final BookViewService bookViewService;
+    private final ModelMapper modelMapper;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Tenants tenants;
+    private final int iterations;
+    private final Duration maxDuration;
+    private volatile WarmUpReport lastReport;
+
+    public WarmUpServiceImpl(BookRepository bookRepository, BookService bookService, LoanService loanService,
+                             BookViewService bookViewService, ModelMapper modelMapper, ObjectMapper objectMapper,
+                             Validator validator, PlatformTransactionManager transactionManager, Tenants tenants,
+                             @Value("${application.warmup.iterations:0}") int iterations,
+                             @Value("${application.warmup.duration:30s}") Duration maxDuration) {
+        this.bookRepository = bookRepository;
+        this.bookService = bookService;
+        this.loanService = loanService;
+        this.bookViewService = bookViewService;
+        this.modelMapper = modelMapper;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.tenants = tenants;
+        this.iterations = iterations;
+        this.maxDuration = maxDuration;
+    }
+
+    // depois dos listeners que reconciliam sugestões, estatísticas e multas
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(StartupConfig.WARM_UP_ORDER)
+    public void warmUpBeforeReady() {
+        if (iterations > 0) {
+            long deadline = System.nanoTime() + maxDuration.toNanos();
+            tenants.forEach(() -> {
+                // o que sobrar do prazo; com ele esgotado, cada tenant ainda roda uma iteração
+                Duration remaining = Duration.ofNanos(Math.max(0, deadline - System.nanoTime()));
+                WarmUpReport report = warmUp(iterations, remaining);
+                lastReport = report;
+                log.info("Aquecimento: {} iterações em {} ms; primeira {} us, aquecida {} us",
+                        report.getIterations(), report.getElapsedMillis(),
+                        report.getFirstIterationMicros(), report.getWarmIterationMicros());
+            });
+        }
+    }
+
+    @Override
+    public Optional<WarmUpReport> getLastReport() {
+        return Optional.ofNullable(lastReport);
+    }
+
+    @Override
+    public WarmUpReport warmUp(int iterations, Duration maxDuration) {
+        CompactPageHttpMessageConverter compact = new CompactPageHttpMessageConverter(objectMapper);
+        long[] nanos = new long[iterations];
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        int done = 0;
+        while (done < iterations && (done == 0 || System.nanoTime() < deadline)) {
+            long iterationStart = System.nanoTime();
+            int iteration = done;
+            transactionTemplate.executeWithoutResult(status -> {
+                status.setRollbackOnly();
+                List<Book> books = bookRepository.saveAll(syntheticBooks());
+                List<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toList());
+                iterate(books, isbns, compact, iteration);
+            });
+            readOnlyTransaction.executeWithoutResult(status -> bookService.find(Book.builder().build(), PageRequest.of(0, 10)));
+            nanos[done++] = System.nanoTime() - iterationStart;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long[] warm = Arrays.copyOfRange(nanos, done - Math.max(1, done / 10), done);
+        Arrays.sort(warm);
+        return WarmUpReport.builder()
+                .iterations(done)
+                .elapsedMillis(elapsed / 1_000_000)
+                .firstIterationMicros(nanos[0] / 1_000)
+                .warmIterationMicros(warm[warm.length / 2] / 1_000)
+                .build();
+    }
+
+    private void iterate(List<Book> books, List<String> isbns, CompactPageHttpMessageConverter compact, int iteration) {
+        Book book = books.get(iteration % books.size());
+        Pageable pageable = PageRequest.of(0, 10);
+
+        // consultas do repositório, pelos mesmos serviços dos endpoints
+        Page<Book> result = bookService.find(Book.builder().title(SYNTHETIC_PREFIX).build(), pageable);
+        bookService.getByIsbns(isbns);
+        bookViewService.getById(book.getId());
+        loanService.find(LoanFilterDTO.builder().isbn(book.getIsbn()).customer("warmup").build(), pageable);
+
+        // mapeamento do BookController.find
+        List<BookDTO> content = new ArrayList<>(result.getNumberOfElements());
+        for (Book found : result.getContent()) {
+            content.add(modelMapper.map(found, BookDTO.class));
+        }
+        Page<BookDTO> page = new PageImpl<>(content, pageable, result.getTotalElements());
+
+        // serialização da página: PageImpl completo e formato enxuto
+        try {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), page);
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream(), JsonEncoding.UTF8)) {
+                compact.writePage(page, gen);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // validação do @Valid BookDTO, com e sem erros
+        validator.validate(content.isEmpty() ? BookDTO.builder().build() : content.get(0));
+        validator.validate(BookDTO.builder().isbn(book.getIsbn()).build());
+    }
+
+    private static List<Book> syntheticBooks() {
+        List<Book> books = new ArrayList<>(SYNTHETIC_BOOKS);
+        for (int i = 0; i < SYNTHETIC_BOOKS; i++) {
+            books.add(Book.builder().isbn(SYNTHETIC_PREFIX + i).title(SYNTHETIC_PREFIX + "Título " + i)
+                    .author("Autor " + (i % 5)).build());
+        }
+        return books;
+    }
+}
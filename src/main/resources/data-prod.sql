@@ -0,0 +1,12 @@
+-- migração dos empréstimos anteriores à tabela customer: um cliente por email normalizado
+insert into customer (name, email)
+select max(l.customer), lower(trim(l.email)) from loan l
+where l.customer_id is null and l.email is not null and trim(l.email) <> ''
+  and not exists (select 1 from customer c where c.email = lower(trim(l.email)))
+group by lower(trim(l.email));
+
+update loan l set customer_id = (select c.id from customer c where c.email = lower(trim(l.email)))
+where l.customer_id is null and l.email is not null and trim(l.email) <> '';
+
+update loan_history h set customer_id = (select c.id from customer c where c.email = lower(trim(h.email)))
+where h.customer_id is null and h.email is not null and trim(h.email) <> '';
@@ -0,0 +1,110 @@
+create table if not exists book (
+    id bigint generated by default as identity,
+    author varchar(255),
+    isbn varchar(255),
+    title varchar(255),
+    version bigint default 0 not null,
+    primary key (id)
+);
+
+create table if not exists customer (
+    id bigint generated by default as identity,
+    name varchar(100),
+    email varchar(255) not null,
+    primary key (id),
+    constraint uk_customer_email unique (email)
+);
+
+create table if not exists loan (
+    id bigint generated by default as identity,
+    customer varchar(100),
+    email varchar(255),
+    customer_id bigint,
+    loan_date date,
+    returned boolean,
+    id_book bigint,
+    version bigint default 0 not null,
+    primary key (id),
+    constraint fk_loan_book foreign key (id_book) references book
+);
+
+-- bases criadas antes do controle de versão otimista
+alter table book add column if not exists version bigint default 0 not null;
+alter table loan add column if not exists version bigint default 0 not null;
+
+-- bases criadas antes da tabela customer
+alter table loan add column if not exists customer_id bigint;
+alter table loan add constraint if not exists fk_loan_customer foreign key (customer_id) references customer;
+create index if not exists idx_loan_customer on loan (customer_id);
+
+-- empréstimos devolvidos arquivados; loan_month (yyyyMM) é a chave de partição.
+-- Em bancos com particionamento nativo (ex.: PostgreSQL) criar com PARTITION BY RANGE (loan_month).
+create table if not exists loan_history (
+    id bigint not null,
+    customer varchar(100),
+    email varchar(255),
+    id_book bigint,
+    customer_id bigint,
+    loan_date date,
+    loan_month integer,
+    archived_at date,
+    version bigint,
+    primary key (id)
+);
+
+create index if not exists idx_loan_history_book on loan_history (id_book);
+create index if not exists idx_loan_history_month on loan_history (loan_month);
+alter table loan_history add column if not exists customer_id bigint;
+create index if not exists idx_loan_history_customer on loan_history (customer_id);
+
+-- feed de mudanças de livros e empréstimos; o id é a sequência do feed
+create table if not exists change_log (
+    id bigint generated by default as identity,
+    entity_type varchar(10) not null,
+    entity_id bigint not null,
+    operation varchar(10) not null,
+    entity_version bigint,
+    changed_at timestamp not null,
+    primary key (id)
+);
+
+create index if not exists idx_change_log_changed_at on change_log (changed_at);
+
+-- fila de reservas por livro emprestado; a ordem de chegada é a do id
+create table if not exists reservation (
+    id bigint generated by default as identity,
+    customer varchar(100),
+    email varchar(255),
+    id_book bigint not null,
+    reserved_at timestamp,
+    primary key (id),
+    constraint fk_reservation_book foreign key (id_book) references book
+);
+
+create index if not exists idx_reservation_book on reservation (id_book, id);
+
+-- detalhe do livro mantido na escrita (ver BookViewService); o id é o do livro
+create table if not exists book_view (
+    id bigint not null,
+    isbn varchar(255),
+    title varchar(255),
+    author varchar(255),
+    version bigint,
+    current_loan_id bigint,
+    current_borrower varchar(100),
+    loan_count bigint not null,
+    last_loan_date date,
+    primary key (id)
+);
+
+-- livros cadastrados antes do book_view
+insert into book_view (id, isbn, title, author, version, current_loan_id, current_borrower, loan_count, last_loan_date)
+select b.id, b.isbn, b.title, b.author, b.version,
+    (select max(l.id) from loan l where l.id_book = b.id and (l.returned is null or l.returned = false)),
+    (select l.customer from loan l where l.id = (select max(a.id) from loan a
+        where a.id_book = b.id and (a.returned is null or a.returned = false))),
+    (select count(*) from loan l where l.id_book = b.id) + (select count(*) from loan_history h where h.id_book = b.id),
+    greatest((select max(l.loan_date) from loan l where l.id_book = b.id),
+        (select max(h.loan_date) from loan_history h where h.id_book = b.id))
+from book b
+where not exists (select 1 from book_view v where v.id = b.id);
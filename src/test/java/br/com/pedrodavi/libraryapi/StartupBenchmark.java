@@ -0,0 +1,94 @@
+package br.com.pedrodavi.libraryapi;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sobe a aplicação em um processo novo (JVM fria) para cada execução e mede o tempo até a
+ * aplicação ficar pronta e a latência da primeira requisição, com e sem o perfil prod.
+ * Com -Dcds=true o perfil prod também é medido usando um arquivo CDS gerado na primeira execução.
+ */
+@Tag("benchmark")
+class StartupBenchmark {
+
+    static final int RUNS = Integer.getInteger("startup.runs", 3);
+    static final Pattern PORT = Pattern.compile("Tomcat started on port\\(s\\): (\\d+)");
+
+    @Test
+    @DisplayName("Tempo de subida e latência da primeira requisição")
+    void startup() throws Exception {
+        measure("default", List.of());
+        measure("prod", List.of("-Dspring.profiles.active=prod"));
+        if (Boolean.getBoolean("cds")) {
+            Path archive = Files.createTempFile("library-api", ".jsa");
+            Files.delete(archive);
+            run(List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.profiles.active=prod",
+                    "-Dapplication.startup.exit-on-ready=true"), false);
+            measure("prod+cds", List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.profiles.active=prod"));
+        }
+    }
+
+    private void measure(String name, List<String> jvmArgs) throws Exception {
+        long[] ready = new long[RUNS];
+        long[] firstRequest = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long[] result = run(jvmArgs, true);
+            ready[i] = result[0];
+            firstRequest[i] = result[1];
+        }
+        System.out.printf("%-9s time-to-ready(ms)=%s first-request(ms)=%s%n",
+                name, java.util.Arrays.toString(ready), java.util.Arrays.toString(firstRequest));
+    }
+
+    // retorna { ms até a porta abrir, ms da primeira requisição }
+    private long[] run(List<String> jvmArgs, boolean request) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(jvmArgs);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LibraryApiApplication.class.getName());
+        command.add("--server.port=0");
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                Matcher matcher = PORT.matcher(line);
+                if (!matcher.find()) {
+                    continue;
+                }
+                long ready = (System.nanoTime() - start) / 1_000_000;
+                if (!request) {
+                    while (out.readLine() != null) { } // aguarda o fim da execução de treino
+                    return new long[]{ ready, 0 };
+                }
+                long requestStart = System.nanoTime();
+                HttpURLConnection connection = (HttpURLConnection) new URL(
+                        "http://localhost:" + matcher.group(1) + "/api/books?page=0&size=10").openConnection();
+                connection.getInputStream().readAllBytes();
+                long firstRequest = (System.nanoTime() - requestStart) / 1_000_000;
+                return new long[]{ ready, firstRequest };
+            }
+            throw new IllegalStateException("Aplicação não subiu");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+}
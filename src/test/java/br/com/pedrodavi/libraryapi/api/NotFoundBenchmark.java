@@ -0,0 +1,102 @@
+package br.com.pedrodavi.libraryapi.api;
+
+import br.com.pedrodavi.libraryapi.api.resource.BookController;
+import br.com.pedrodavi.libraryapi.service.BookService;
+import br.com.pedrodavi.libraryapi.service.BookSuggestionService;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
+import br.com.pedrodavi.libraryapi.service.LoanService;
+import br.com.pedrodavi.libraryapi.service.ReservationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.clearInvocations;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Vazão e alocação de respostas 404 pelo MockMvc: GET /api/books/{id} inexistente, com
+ * NotFoundException, contra o mesmo 404 lançado como ResponseStatusException comum, que
+ * captura a pilha inteira da cadeia de filtros e do DispatcherServlet.
+ */
+@Tag("benchmark")
+@ActiveProfiles("test")
+@WebMvcTest(BookController.class)
+@Import(NotFoundBenchmark.StackTraceController.class)
+class NotFoundBenchmark {
+
+    static final int REQUESTS = 20_000;
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    BookService bookService;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    BookSuggestionService suggestionService;
+
+    @MockBean
+    ReservationService reservationService;
+
+    @MockBean
+    BookViewService bookViewService;
+
+    // mesmo caminho do BookController.get, com a exceção usada antes da NotFoundException
+    @RestController
+    static class StackTraceController {
+
+        @Autowired
+        BookService bookService;
+
+        @GetMapping("/benchmark/books/{id}")
+        public Object get(@PathVariable Long id) {
+            return bookService.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }
+    }
+
+    @Test
+    @DisplayName("Vazão e alocação de respostas 404")
+    void notFoundThroughput() throws Exception {
+        given(bookService.getById(anyLong())).willReturn(Optional.empty());
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        for (int round = 0; round < 2; round++) { // a primeira rodada aquece o JIT
+            for (String uri : new String[] { "/benchmark/books/", "/api/books/" }) {
+                clearInvocations(bookService); // o mock guarda cada chamada
+                long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                for (int i = 0; i < REQUESTS; i++) {
+                    int status = mvc.perform(get(uri + i)).andReturn().getResponse().getStatus();
+                    if (status != 404) {
+                        throw new IllegalStateException("status inesperado " + status);
+                    }
+                }
+                double seconds = (System.nanoTime() - start) / 1e9;
+                long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+                System.out.printf("rodada %d %-20s %8.0f req/s | %6.1f KB alocados por requisição%n",
+                        round, uri.startsWith("/api") ? "NotFoundException" : "com pilha", REQUESTS / seconds,
+                        bytes / 1024.0 / REQUESTS);
+            }
+        }
+    }
+
+}
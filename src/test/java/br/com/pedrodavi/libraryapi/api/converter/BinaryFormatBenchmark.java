@@ -0,0 +1,106 @@
+package br.com.pedrodavi.libraryapi.api.converter;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.LoanDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Página de empréstimos (com o livro de cada um) no formato enxuto, como sai de GET /api/loans:
+ * bytes, tempo de escrita e tempo de leitura do cliente para DTOs em JSON, CBOR e Smile.
+ */
+@Tag("benchmark")
+class BinaryFormatBenchmark {
+
+    static final int ITERATIONS = 200_000;
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    @DisplayName("Tamanho e tempo de escrita/leitura: JSON x CBOR x Smile")
+    void formats() throws Exception {
+        ObjectMapper[] mappers = { mapper(new ObjectMapper()), mapper(new ObjectMapper(new CBORFactory())),
+                mapper(new ObjectMapper(new SmileFactory())) };
+        String[] names = { "JSON", "CBOR", "Smile" };
+
+        for (int size : new int[]{ 1, 10, 100 }) {
+            Page<LoanDTO> page = createPage(size);
+            int iterations = ITERATIONS / size;
+            StringBuilder line = new StringBuilder(String.format("page size=%3d", size));
+            for (int f = 0; f < mappers.length; f++) {
+                ObjectMapper mapper = mappers[f];
+                CompactPageHttpMessageConverter converter = new CompactPageHttpMessageConverter(mapper);
+
+                // primeira rodada só aquece o JIT
+                write(converter, mapper, page, iterations);
+                byte[] bytes = out.toByteArray();
+                read(mapper, bytes, iterations);
+
+                long writeNanos = write(converter, mapper, page, iterations);
+                long readNanos = read(mapper, bytes, iterations);
+                assertThat(mapper.readValue(bytes, CompactPage.class).content).hasSize(size);
+                line.append(String.format(" | %-5s %6d bytes escrita %6d ns leitura %6d ns", names[f], bytes.length, writeNanos, readNanos));
+            }
+            System.out.println(line);
+        }
+    }
+
+    private static ObjectMapper mapper(ObjectMapper mapper) {
+        return mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    private static Page<LoanDTO> createPage(int size) {
+        List<LoanDTO> loans = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            BookDTO book = BookDTO.builder().id((long) i).title("Titulo do livro " + i).author("Autor " + i)
+                    .isbn("978-85-" + (100000 + i)).version(3L).build();
+            loans.add(LoanDTO.builder().id(1_000_000L + i).isbn(book.getIsbn()).customer("Cliente " + i)
+                    .email("cliente" + i + "@email.com").book(book).version(1L).build());
+        }
+        return new PageImpl<>(loans, PageRequest.of(0, size), 10_000);
+    }
+
+    private long write(CompactPageHttpMessageConverter converter, ObjectMapper mapper, Page<LoanDTO> page, int iterations) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                converter.writePage(page, gen);
+            }
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private long read(ObjectMapper mapper, byte[] bytes, int iterations) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            mapper.readValue(bytes, CompactPage.class);
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    static class CompactPage {
+        public List<LoanDTO> content;
+        public int page;
+        public int size;
+        public long totalElements;
+        public int totalPages;
+    }
+
+}
@@ -0,0 +1,72 @@
+package br.com.pedrodavi.libraryapi.api.converter;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+@Tag("benchmark")
+class CompactPageBenchmark {
+
+    static final int ITERATIONS = 200_000;
+
+    final ObjectMapper mapper = new ObjectMapper();
+    final CompactPageHttpMessageConverter converter = new CompactPageHttpMessageConverter(mapper);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Test
+    @DisplayName("Tamanho e tempo de serialização: PageImpl x página compacta")
+    void serialization() throws Exception {
+        for (int size : new int[]{ 1, 10, 100 }) {
+            List<BookDTO> books = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                books.add(BookDTO.builder().id((long) i).title("Titulo " + i).author("Autor " + i).isbn("ISBN-" + i).build());
+            }
+            Page<BookDTO> page = new PageImpl<>(books, PageRequest.of(0, size), 1_000);
+            int iterations = ITERATIONS / size;
+
+            // primeira rodada só aquece o JIT
+            writePageImpl(page, iterations);
+            writeCompact(page, iterations);
+
+            long pageImplNanos = writePageImpl(page, iterations);
+            int pageImplBytes = out.size();
+            long compactNanos = writeCompact(page, iterations);
+            int compactBytes = out.size();
+
+            System.out.printf("page size=%3d PageImpl: %5d bytes %7d ns/op | compacta: %5d bytes %7d ns/op%n",
+                    size, pageImplBytes, pageImplNanos, compactBytes, compactNanos);
+        }
+    }
+
+    private long writePageImpl(Page<BookDTO> page, int iterations) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            mapper.writeValue(out, page);
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private long writeCompact(Page<BookDTO> page, int iterations) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(out)) {
+                converter.writePage(page, gen);
+            }
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+}
@@ -1,11 +1,25 @@
 package br.com.pedrodavi.libraryapi.api.resource;
 
+import br.com.pedrodavi.libraryapi.api.converter.BinaryFormats;
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
 import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.api.dto.BookLookupDTO;
+import br.com.pedrodavi.libraryapi.api.dto.ReservationDTO;
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.BookView;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import br.com.pedrodavi.libraryapi.api.dto.BookSuggestionDTO;
 import br.com.pedrodavi.libraryapi.service.BookService;
+import br.com.pedrodavi.libraryapi.service.BookSuggestionService;
+import br.com.pedrodavi.libraryapi.service.BookViewService;
+import br.com.pedrodavi.libraryapi.service.LoanService;
+import br.com.pedrodavi.libraryapi.service.ReservationService;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,18 +30,22 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.BDDMockito.*;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -47,6 +65,18 @@ class BookControllerTest {
     @MockBean
     BookService service;
 
+    @MockBean
+    BookSuggestionService suggestionService;
+
+    @MockBean
+    LoanService loanService;
+
+    @MockBean
+    ReservationService reservationService;
+
+    @MockBean
+    BookViewService bookViewService;
+
     public String objectToJson(BookDTO bookDTO) throws JsonProcessingException {
         return new ObjectMapper().writeValueAsString(bookDTO);
     }
@@ -143,6 +173,28 @@ class BookControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve obter o detalhe do livro com o empréstimo atual")
+    void getBookDetailView() throws Exception {
+
+        BookView view = BookView.builder().id(1L).isbn("12345").title("API TDD BDD").author("Pedro Davi")
+                .version(0L).currentLoanId(7L).currentBorrower("Pedro").loanCount(3)
+                .lastLoanDate(LocalDate.of(2020, 11, 20)).build();
+        given(bookViewService.getById(1L)).willReturn(Optional.of(view));
+
+        request = get(BOOK_API.concat("/1/detail")).accept(APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("isbn").value("12345"))
+                .andExpect(jsonPath("available").value(false))
+                .andExpect(jsonPath("currentLoanId").value(7))
+                .andExpect(jsonPath("currentBorrower").value("Pedro"))
+                .andExpect(jsonPath("loanCount").value(3))
+                .andExpect(jsonPath("lastLoanDate").value("2020-11-20"));
+        verify(service, never()).getById(anyLong());
+    }
+
     @Test
     @DisplayName("Deve retornar not found quando livro não encontrado")
     void bookNotFound() throws Exception {
@@ -223,6 +275,47 @@ class BookControllerTest {
         mvc.perform(request).andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("Deve atualizar um livro direto pela versão, sem carregá-lo")
+    void updateBookWithVersion() throws Exception {
+        BookDTO bookDTO = createNewBook();
+        bookDTO.setVersion(3L);
+
+        given(service.updateDetails(1L, bookDTO.getTitle(), bookDTO.getAuthor(), 3L)).willReturn(Optional.of(Book.builder()
+                .id(1L).title(bookDTO.getTitle()).author(bookDTO.getAuthor()).isbn(bookDTO.getIsbn()).version(4L).build()));
+
+        request = put(BOOK_API.concat("/1"))
+                .content(objectToJson(bookDTO))
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(1))
+                .andExpect(jsonPath("title").value(bookDTO.getTitle()))
+                .andExpect(jsonPath("isbn").value(bookDTO.getIsbn()))
+                .andExpect(jsonPath("version").value(4));
+
+        verify(service, never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 409 ao atualizar livro com versão desatualizada")
+    void updateBookConflict() throws Exception {
+        BookDTO bookDTO = createNewBook();
+        bookDTO.setVersion(3L);
+
+        given(service.updateDetails(1L, bookDTO.getTitle(), bookDTO.getAuthor(), 3L))
+                .willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        request = put(BOOK_API.concat("/1"))
+                .content(objectToJson(bookDTO))
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON);
+
+        mvc.perform(request).andExpect(status().isConflict());
+    }
+
     @Test
     @DisplayName("Deve filtrar livros")
     void findBooks() throws Exception {
@@ -248,4 +341,167 @@ class BookControllerTest {
                 .andExpect(jsonPath("pageable.pageSize").value(100))
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
+
+    @Test
+    @DisplayName("Deve filtrar livros retornando a página no formato compacto")
+    void findBooksCompactPage() throws Exception {
+        Book book = Book.builder().id(1L).title("API TDD BDD").author("Pedro Davi").isbn("12345").build();
+
+        given(service.find(any(Book.class), any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
+
+        request = get(BOOK_API.concat("?page=0&size=100")).accept(CompactPageHttpMessageConverter.COMPACT_PAGE_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].isbn").value("12345"))
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("page").value(0))
+                .andExpect(jsonPath("size").value(100))
+                .andExpect(jsonPath("pageable").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Deve filtrar livros retornando a página compacta em CBOR")
+    void findBooksCbor() throws Exception {
+        Book book = Book.builder().id(1L).title("API TDD BDD").author("Pedro Davi").isbn("12345").build();
+
+        given(service.find(any(Book.class), any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 100), 1));
+
+        request = get(BOOK_API.concat("?page=0&size=100")).accept(BinaryFormats.CBOR);
+
+        byte[] body = mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryFormats.CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(page.get("content")).hasSize(1);
+        assertThat(page.get("content").get(0).get("isbn").asText()).isEqualTo("12345");
+        assertThat(page.get("totalElements").asLong()).isEqualTo(1);
+        assertThat(page.has("pageable")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve criar um livro recebendo e respondendo em Smile")
+    void createBookSmile() throws Exception {
+        ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+        Book savedBook = Book.builder().id(10L).title("API TDD BDD").author("Pedro Davi").isbn("12345").build();
+        given(service.save(any(Book.class))).willReturn(savedBook);
+
+        request = post(BOOK_API)
+                .contentType(BinaryFormats.SMILE)
+                .accept(BinaryFormats.SMILE)
+                .content(smileMapper.writeValueAsBytes(createNewBook()));
+
+        byte[] body = mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(BinaryFormats.SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        BookDTO created = smileMapper.readValue(body, BookDTO.class);
+        assertThat(created.getId()).isEqualTo(10L);
+        assertThat(created.getIsbn()).isEqualTo("12345");
+    }
+
+    @Test
+    @DisplayName("Deve sugerir títulos e autores pelo prefixo")
+    void suggestBooks() throws Exception {
+        given(suggestionService.suggest("harr", 5)).willReturn(Arrays.asList(
+                BookSuggestionDTO.builder().text("Harry Potter").type("title").bookId(1L).build()));
+
+        request = get(BOOK_API.concat("/suggest?q=harr&limit=5")).accept(APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("[0].text").value("Harry Potter"))
+                .andExpect(jsonPath("[0].type").value("title"))
+                .andExpect(jsonPath("[0].bookId").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve reservar um livro emprestado informando a posição na fila")
+    void reserveBook() throws Exception {
+        Book book = Book.builder().id(1L).isbn("123").build();
+        given(service.getById(1L)).willReturn(Optional.of(book));
+        given(reservationService.reserve(any(Reservation.class))).willAnswer(invocation -> {
+            Reservation reservation = invocation.getArgument(0);
+            reservation.setId(7L);
+            return reservation;
+        });
+        given(reservationService.getPosition(any(Reservation.class))).willReturn(2L);
+
+        String json = new ObjectMapper().writeValueAsString(ReservationDTO.builder().customer("Maria").email("maria@email.com").build());
+        request = post(BOOK_API.concat("/1/reservations")).accept(APPLICATION_JSON).contentType(APPLICATION_JSON).content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("id").value(7))
+                .andExpect(jsonPath("customer").value("Maria"))
+                .andExpect(jsonPath("position").value(2));
+        verify(reservationService).reserve(argThat(r -> r.getBook() == book && r.getEmail().equals("maria@email.com")));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao reservar livro que não está emprestado")
+    void reserveAvailableBook() throws Exception {
+        given(service.getById(1L)).willReturn(Optional.of(Book.builder().id(1L).build()));
+        given(reservationService.reserve(any(Reservation.class))).willThrow(new BusinessException("Book not loaned"));
+
+        String json = new ObjectMapper().writeValueAsString(ReservationDTO.builder().customer("Maria").email("maria@email.com").build());
+        request = post(BOOK_API.concat("/1/reservations")).accept(APPLICATION_JSON).contentType(APPLICATION_JSON).content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Book not loaned"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários livros por id mantendo a ordem e marcando os inexistentes")
+    void getBooksByIds() throws Exception {
+        Book book = Book.builder().id(3L).title("API TDD BDD").author("Pedro Davi").isbn("12345").build();
+        given(service.getByIds(Arrays.asList(3L, 9L)))
+                .willReturn(Arrays.asList(Optional.of(book), Optional.empty()));
+
+        request = get(BOOK_API.concat("?ids=3,9")).accept(APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[0].id").value(3))
+                .andExpect(jsonPath("[0].found").value(true))
+                .andExpect(jsonPath("[0].book.isbn").value("12345"))
+                .andExpect(jsonPath("[1].id").value(9))
+                .andExpect(jsonPath("[1].found").value(false))
+                .andExpect(jsonPath("[1].book").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários livros por id e por Isbn no lookup")
+    void lookupBooks() throws Exception {
+        Book book = Book.builder().id(1L).title("API TDD BDD").author("Pedro Davi").isbn("12345").build();
+        given(service.getByIds(Arrays.asList(1L))).willReturn(Arrays.asList(Optional.of(book)));
+        given(service.getByIsbns(Arrays.asList("999", "12345")))
+                .willReturn(Arrays.asList(Optional.empty(), Optional.of(book)));
+
+        String json = new ObjectMapper().writeValueAsString(BookLookupDTO.builder()
+                .ids(Arrays.asList(1L)).isbns(Arrays.asList("999", "12345")).build());
+        request = post(BOOK_API.concat("/lookup"))
+                .contentType(APPLICATION_JSON)
+                .accept(APPLICATION_JSON)
+                .content(json);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("[0].id").value(1))
+                .andExpect(jsonPath("[0].found").value(true))
+                .andExpect(jsonPath("[1].isbn").value("999"))
+                .andExpect(jsonPath("[1].found").value(false))
+                .andExpect(jsonPath("[2].isbn").value("12345"))
+                .andExpect(jsonPath("[2].book.id").value(1));
+    }
 }
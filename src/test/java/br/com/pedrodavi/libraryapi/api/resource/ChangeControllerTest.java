@@ -0,0 +1,128 @@
+package br.com.pedrodavi.libraryapi.api.resource;
+
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.service.ChangeFeedService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.BDDMockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(ChangeController.class)
+@AutoConfigureMockMvc
+class ChangeControllerTest {
+
+    static String CHANGE_API = "/api/changes";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    private ChangeFeedService service;
+
+    private ChangeLog change(long id) {
+        return ChangeLog.builder().id(id).entityType(ChangeLog.EntityType.BOOK).entityId(1L)
+                .operation(ChangeLog.Operation.CREATED).entityVersion(0L).changedAt(LocalDateTime.now()).build();
+    }
+
+    @Test
+    @DisplayName("Deve responder na hora quando já houver mudanças depois da posição")
+    void pollExistingChanges() throws Exception {
+        given(service.getChanges(10L, 100)).willReturn(Arrays.asList(change(11), change(12)));
+
+        MvcResult result = mvc.perform(get(CHANGE_API.concat("?since=10")).accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[0].id").value(11))
+                .andExpect(jsonPath("[0].entityType").value("BOOK"))
+                .andExpect(jsonPath("[0].operation").value("CREATED"));
+        verify(service, never()).addListener(any(Runnable.class));
+    }
+
+    @Test
+    @DisplayName("Deve aguardar e responder quando uma nova mudança for avisada")
+    void pollWaitsForChanges() throws Exception {
+        given(service.getChanges(12L, 100)).willReturn(Collections.emptyList());
+
+        MvcResult result = mvc.perform(get(CHANGE_API.concat("?since=12")).accept(APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(service).addListener(listener.capture());
+        given(service.getChanges(12L, 100)).willReturn(Arrays.asList(change(13)));
+        listener.getValue().run();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("[0].id").value(13));
+        verify(service).removeListener(listener.getValue());
+    }
+
+    @Test
+    @DisplayName("Deve enviar as mudanças como Server-Sent Events a partir do Last-Event-ID")
+    void streamChanges() throws Exception {
+        given(service.getChanges(5L, ChangeController.MAX_CHANGES)).willReturn(Arrays.asList(change(6)));
+
+        mvc.perform(get(CHANGE_API.concat("/stream")).header("Last-Event-ID", "5"))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().string(containsString("id:6")))
+                .andExpect(content().string(containsString("event:change")));
+    }
+
+    @Test
+    @DisplayName("Não deve segurar a thread do notificador enquanto envia para um cliente SSE")
+    void streamSendsOffNotifierThread() throws Exception {
+        given(service.getChanges(5L, ChangeController.MAX_CHANGES)).willReturn(Collections.emptyList());
+        mvc.perform(get(CHANGE_API.concat("/stream")).header("Last-Event-ID", "5"))
+                .andExpect(request().asyncStarted());
+        ArgumentCaptor<Runnable> listener = ArgumentCaptor.forClass(Runnable.class);
+        verify(service).addListener(listener.capture());
+
+        CountDownLatch slowClient = new CountDownLatch(1);
+        CountDownLatch sending = new CountDownLatch(1);
+        given(service.getChanges(5L, ChangeController.MAX_CHANGES)).willAnswer(invocation -> {
+            sending.countDown();
+            slowClient.await(5, TimeUnit.SECONDS);
+            return Collections.emptyList();
+        });
+
+        long start = System.nanoTime();
+        listener.getValue().run();
+        listener.getValue().run();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        slowClient.countDown();
+    }
+
+}
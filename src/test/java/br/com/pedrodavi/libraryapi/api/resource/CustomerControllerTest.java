@@ -0,0 +1,99 @@
+package br.com.pedrodavi.libraryapi.api.resource;
+
+import br.com.pedrodavi.libraryapi.api.dto.CustomerBalanceDTO;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.service.CustomerService;
+import br.com.pedrodavi.libraryapi.service.FineService;
+import br.com.pedrodavi.libraryapi.service.LoanService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.BDDMockito.*;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@WebMvcTest(CustomerController.class)
+@AutoConfigureMockMvc
+class CustomerControllerTest {
+
+    static String CUSTOMER_API = "/api/customers";
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    private CustomerService service;
+
+    @MockBean
+    private LoanService loanService;
+
+    @MockBean
+    private FineService fineService;
+
+    @Test
+    @DisplayName("Deve listar os empréstimos de um cliente")
+    void loansByCustomer() throws Exception {
+        Customer customer = Customer.builder().id(1L).name("Pedro").email("pedro@email.com").build();
+        given(service.getById(1L)).willReturn(Optional.of(customer));
+
+        Book book = Book.builder().id(1L).isbn("001").build();
+        Loan loan = Loan.builder().id(1L).customer("Pedro").email("pedro@email.com")
+                .customerAccount(customer).book(book).loanDate(LocalDate.now()).build();
+        given(loanService.getLoansByCustomer(any(Customer.class), any(Pageable.class)))
+                .willReturn(new PageImpl<>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+
+        mvc.perform(get(CUSTOMER_API.concat("/1/loans?page=0&size=10")).accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].customer").value("Pedro"))
+                .andExpect(jsonPath("content[0].book.isbn").value("001"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+
+    @Test
+    @DisplayName("Deve retornar not found ao listar empréstimos de cliente inexistente")
+    void loansByInexistentCustomer() throws Exception {
+        given(service.getById(anyLong())).willReturn(Optional.empty());
+
+        mvc.perform(get(CUSTOMER_API.concat("/1/loans")).accept(APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Deve retornar o saldo de multas do cliente")
+    void balance() throws Exception {
+        given(fineService.getBalance("pedro@email.com")).willReturn(CustomerBalanceDTO.builder()
+                .email("pedro@email.com").balance(new BigDecimal("7.50")).overdueLoans(2)
+                .computedAt(LocalDateTime.now()).build());
+
+        mvc.perform(get(CUSTOMER_API.concat("/pedro@email.com/balance")).accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("email").value("pedro@email.com"))
+                .andExpect(jsonPath("balance").value(7.5))
+                .andExpect(jsonPath("overdueLoans").value(2));
+    }
+
+}
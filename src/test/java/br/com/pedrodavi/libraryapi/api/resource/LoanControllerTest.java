@@ -1,9 +1,13 @@
 package br.com.pedrodavi.libraryapi.api.resource;
 
+import br.com.pedrodavi.libraryapi.api.converter.CompactPageHttpMessageConverter;
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutDTO;
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutResultDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanFilterDTO;
 import br.com.pedrodavi.libraryapi.api.dto.ReturnedLoanDTO;
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import br.com.pedrodavi.libraryapi.exception.CheckoutException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
 import br.com.pedrodavi.libraryapi.service.BookService;
@@ -20,6 +24,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
@@ -88,6 +93,69 @@ class LoanControllerTest {
 
     }
 
+    @Test
+    @DisplayName("Deve emprestar vários livros em um checkout")
+    void checkout() throws Exception {
+
+        CheckoutDTO dto = CheckoutDTO.builder().customer("Pedro").email("pedro@email.com")
+                .isbns(Arrays.asList("001", "002")).build();
+        given(loanService.checkout("Pedro", "pedro@email.com", Arrays.asList("001", "002")))
+                .willReturn(Arrays.asList(
+                        CheckoutResultDTO.builder().isbn("001").status(CheckoutResultDTO.LOANED).loanId(1L).build(),
+                        CheckoutResultDTO.builder().isbn("002").status(CheckoutResultDTO.LOANED).loanId(2L).build()));
+
+        request = post(LOAN_API.concat("/checkout"))
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .content(objectToJson(dto));
+
+        mvc.perform(request)
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("[1].isbn").value("002"))
+                .andExpect(jsonPath("[1].loanId").value(2));
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro de validação no checkout com Isbn em branco")
+    void checkoutBlankIsbn() throws Exception {
+
+        CheckoutDTO dto = CheckoutDTO.builder().customer("Pedro").email("pedro@email.com")
+                .isbns(Arrays.asList("001", " ", null)).build();
+
+        request = post(LOAN_API.concat("/checkout"))
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .content(objectToJson(dto));
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+        verify(loanService, never()).checkout(anyString(), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Deve retornar o resultado de cada Isbn quando o checkout for recusado")
+    void checkoutRejected() throws Exception {
+
+        CheckoutDTO dto = CheckoutDTO.builder().customer("Pedro").email("pedro@email.com")
+                .isbns(Arrays.asList("001", "002")).build();
+        given(loanService.checkout("Pedro", "pedro@email.com", Arrays.asList("001", "002")))
+                .willThrow(new CheckoutException(Arrays.asList(
+                        CheckoutResultDTO.builder().isbn("001").status(CheckoutResultDTO.ROLLED_BACK).build(),
+                        CheckoutResultDTO.builder().isbn("002").status(CheckoutResultDTO.ALREADY_LOANED).build())));
+
+        request = post(LOAN_API.concat("/checkout"))
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .content(objectToJson(dto));
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("[0].status").value(CheckoutResultDTO.ROLLED_BACK))
+                .andExpect(jsonPath("[1].status").value(CheckoutResultDTO.ALREADY_LOANED))
+                .andExpect(jsonPath("[1].loanId").doesNotExist());
+    }
+
     @Test
     @DisplayName("Deve retornar erro ao fazer empréstimo de livro inexistente")
     void invalidIsbnCreateLoan() throws Exception {
@@ -134,10 +202,9 @@ class LoanControllerTest {
     @Test
     @DisplayName("Deve retornar um livro")
     void returnBook() throws Exception {
-        ReturnedLoanDTO returnedLoanDTO = ReturnedLoanDTO.builder().returned(true).build();
-        Loan loan = Loan.builder().id(1L).build();
+        ReturnedLoanDTO returnedLoanDTO = ReturnedLoanDTO.builder().returned(true).version(0L).build();
 
-        given(loanService.getById(anyLong())).willReturn(Optional.of(loan));
+        given(loanService.updateReturned(1L, true, 0L)).willReturn(true);
 
         String json = objectToJson(returnedLoanDTO);
         mvc.perform(patch(LOAN_API.concat("/1"))
@@ -146,7 +213,24 @@ class LoanControllerTest {
                 .content(json))
                 .andExpect(status().isOk());
 
-        verify(loanService, times(1)).update(loan);
+        verify(loanService, times(1)).updateReturned(1L, true, 0L);
+        verify(loanService, never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve retornar 409 ao devolver um livro com versão desatualizada")
+    void returnBookConflict() throws Exception {
+        ReturnedLoanDTO returnedLoanDTO = ReturnedLoanDTO.builder().returned(true).version(0L).build();
+
+        given(loanService.updateReturned(1L, true, 0L))
+                .willThrow(new ObjectOptimisticLockingFailureException(Loan.class, 1L));
+
+        mvc.perform(patch(LOAN_API.concat("/1"))
+                .accept(APPLICATION_JSON)
+                .contentType(APPLICATION_JSON)
+                .content(objectToJson(returnedLoanDTO)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors", hasSize(1)));
     }
 
     @Test
@@ -155,7 +239,7 @@ class LoanControllerTest {
         ReturnedLoanDTO returnedLoanDTO = ReturnedLoanDTO.builder().returned(true).build();
         String json = objectToJson(returnedLoanDTO);
 
-        given(loanService.getById(anyLong())).willReturn(Optional.empty());
+        given(loanService.updateReturned(anyLong(), any(), any())).willReturn(false);
 
         mvc.perform(patch(LOAN_API.concat("/1"))
                 .accept(APPLICATION_JSON)
@@ -186,6 +270,28 @@ class LoanControllerTest {
                 .andExpect(jsonPath("pageable.pageNumber").value(0));
     }
 
+    @Test
+    @DisplayName("Deve filtrar empréstimos retornando a página no formato compacto")
+    void findLoansCompactPage() throws Exception {
+        Loan loan = buildLoan();
+        loan.setId(1L);
+
+        given(loanService.find(any(LoanFilterDTO.class), any(Pageable.class)))
+                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+
+        request = get(LOAN_API.concat("?customer=Pedro&page=0&size=10"))
+                .accept(CompactPageHttpMessageConverter.COMPACT_PAGE_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].customer").value("Pedro"))
+                .andExpect(jsonPath("content[0].book.isbn").value("001"))
+                .andExpect(jsonPath("totalElements").value(1))
+                .andExpect(jsonPath("totalPages").value(1))
+                .andExpect(jsonPath("sort").doesNotExist());
+    }
+
     public Loan buildLoan() {
         Book book = Book.builder().id(1L).isbn("001").build();
         return Loan.builder().book(book).customer("Pedro")
@@ -0,0 +1,54 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Garante que a especificação estática servida no perfil prod está igual à gerada pelo springfox.
+ * Para regerar: mvn test -Dtest=ApiDocsTest -DgenerateApiDocs=true
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ApiDocsTest {
+
+    static final Path API_DOCS_FILE = Paths.get("src/main/resources/api-docs/swagger.json");
+
+    @Autowired
+    MockMvc mvc;
+
+    @Test
+    @DisplayName("A especificação estática da API deve estar atualizada")
+    void staticApiDocsUpToDate() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String json = mvc.perform(get(StaticApiDocsController.API_DOCS)).andReturn().getResponse().getContentAsString();
+        JsonNode generated = mapper.readTree(json);
+
+        if (Boolean.getBoolean("generateApiDocs")) {
+            Files.createDirectories(API_DOCS_FILE.getParent());
+            mapper.writerWithDefaultPrettyPrinter().writeValue(API_DOCS_FILE.toFile(), generated);
+            return;
+        }
+
+        try (InputStream in = new ClassPathResource("api-docs/swagger.json").getInputStream()) {
+            JsonNode current = mapper.readTree(in);
+            assertThat(current.get("paths")).isEqualTo(generated.get("paths"));
+            assertThat(current.get("definitions")).isEqualTo(generated.get("definitions"));
+        }
+    }
+
+}
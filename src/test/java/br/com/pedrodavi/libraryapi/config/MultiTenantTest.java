@@ -0,0 +1,108 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookDTO;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Três bancos H2 em memória: o padrão (spring.datasource) e um por tenant configurado. O
+ * schema dos tenants vem do schema-prod.sql, como na subida da aplicação.
+ */
+@SpringBootTest(properties = {
+        "application.tenants.ids=lib-a,lib-b",
+        "application.tenants.datasources.lib-a.jdbc-url=jdbc:h2:mem:tenant-lib-a;DB_CLOSE_DELAY=-1",
+        "application.tenants.datasources.lib-b.jdbc-url=jdbc:h2:mem:tenant-lib-b;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class MultiTenantTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    Tenants tenants;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown() {
+        tenants.forEach(bookRepository::deleteAll);
+    }
+
+    private ResultActions createBook(String tenantId, String isbn, String title) throws Exception {
+        BookDTO book = BookDTO.builder().isbn(isbn).title(title).author("Pedro").build();
+        return mvc.perform(post("/api/books").header(TenantFilter.TENANT_HEADER, tenantId)
+                .contentType(APPLICATION_JSON).accept(APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(book)));
+    }
+
+    @Test
+    @DisplayName("Deve exigir ISBN único por tenant e não entre tenants")
+    void isbnUniquePerTenant() throws Exception {
+        createBook("lib-a", "T-001", "Livro da biblioteca A").andExpect(status().isCreated());
+        createBook("lib-b", "T-001", "Livro da biblioteca B").andExpect(status().isCreated());
+        createBook("lib-a", "T-001", "Repetido").andExpect(status().isBadRequest());
+
+        mvc.perform(get("/api/books?isbn=T-001").header(TenantFilter.TENANT_HEADER, "lib-b").accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].title").value("Livro da biblioteca B"));
+        mvc.perform(get("/api/books?isbn=T-001").accept(APPLICATION_JSON))
+                .andExpect(jsonPath("content", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Deve manter as sugestões em memória separadas por tenant")
+    void suggestionsPerTenant() throws Exception {
+        createBook("lib-a", "T-002", "Quincas Borba").andExpect(status().isCreated());
+
+        mvc.perform(get("/api/books/suggest?q=quincas").header(TenantFilter.TENANT_HEADER, "lib-a").accept(APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(1)));
+        mvc.perform(get("/api/books/suggest?q=quincas").header(TenantFilter.TENANT_HEADER, "lib-b").accept(APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Deve recusar tenant desconhecido")
+    void unknownTenant() throws Exception {
+        mvc.perform(get("/api/books?isbn=T-001").header(TenantFilter.TENANT_HEADER, "lib-x").accept(APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Deve executar a tarefa em cada tenant com o banco do tenant")
+    void forEachTenant() throws Exception {
+        createBook("lib-a", "T-003", "Um").andExpect(status().isCreated());
+        createBook("lib-a", "T-004", "Dois").andExpect(status().isCreated());
+        createBook("lib-b", "T-003", "Um").andExpect(status().isCreated());
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        tenants.forEach(() -> counts.put(TenantContext.getTenantId(), bookRepository.count()));
+
+        assertThat(counts).containsExactly(Map.entry(TenantContext.DEFAULT_TENANT, 0L),
+                Map.entry("lib-a", 2L), Map.entry("lib-b", 1L));
+    }
+
+}
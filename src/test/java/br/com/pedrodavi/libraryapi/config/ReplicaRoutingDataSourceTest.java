@@ -0,0 +1,91 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.service.BookService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dois bancos H2 em memória fazem o papel de primário e réplica; como não há replicação
+ * entre eles, dá para saber de qual banco cada leitura veio. O schema da réplica vem do
+ * schema-prod.sql, já que o Hibernate só gera as tabelas no primário.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary",
+        "application.datasource.replica.jdbc-url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:schema-prod.sql'",
+        "application.datasource.replica.lag-tolerance=5s"
+})
+class ReplicaRoutingDataSourceTest {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    HikariConfig replicaHikariConfig;
+
+    HikariDataSource replicaDataSource;
+
+    JdbcTemplate replica;
+
+    @BeforeEach
+    public void setUp() {
+        // conexão própria na mesma base em memória da réplica (sem o read-only do pool da aplicação)
+        replicaDataSource = new HikariDataSource();
+        replicaDataSource.setJdbcUrl(replicaHikariConfig.getJdbcUrl());
+        replica = new JdbcTemplate(replicaDataSource);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        replicaDataSource.close();
+    }
+
+    @Test
+    @DisplayName("Deve gravar no primário e ler da réplica")
+    void readsFromReplica() {
+        Book book = bookService.save(Book.builder().isbn("R-001").title("Primario").author("Pedro").build());
+
+        // ainda não "replicado": a leitura somente leitura não encontra o livro
+        assertThat(bookService.getBookByIsbn("R-001")).isEmpty();
+
+        replica.update("insert into book (id, isbn, title, author) values (?, ?, ?, ?)",
+                book.getId(), "R-001", "Replica", "Pedro");
+        assertThat(bookService.getBookByIsbn("R-001")).hasValueSatisfying(b -> assertThat(b.getTitle()).isEqualTo("Replica"));
+    }
+
+    @Test
+    @DisplayName("Deve ler do primário logo após uma escrita do mesmo cliente")
+    void readYourWrites() {
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest(), writeResponse));
+        bookService.save(Book.builder().isbn("R-002").title("Primario").author("Pedro").build());
+
+        Cookie lastWrite = writeResponse.getCookie(ReplicaRoutingDataSource.LAST_WRITE_COOKIE);
+        assertThat(lastWrite).isNotNull();
+
+        MockHttpServletRequest readRequest = new MockHttpServletRequest();
+        readRequest.setCookies(lastWrite);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(readRequest, new MockHttpServletResponse()));
+        assertThat(bookService.getBookByIsbn("R-002")).isPresent();
+
+        lastWrite.setValue(String.valueOf(System.currentTimeMillis() - 10_000)); // fora da tolerância
+        assertThat(bookService.getBookByIsbn("R-002")).isEmpty();
+    }
+
+}
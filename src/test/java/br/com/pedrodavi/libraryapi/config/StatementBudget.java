@@ -0,0 +1,22 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.annotation.Import;
+
+import java.lang.annotation.*;
+
+/**
+ * Falha o teste quando o corpo do método executa mais comandos SQL do que o orçamento.
+ * Na classe, vale para todos os métodos e importa o StatementMetricsConfig nos testes de
+ * fatia (@WebMvcTest, @DataJpaTest); no método, sobrepõe o valor da classe. Dados preparados
+ * no @BeforeEach não entram na conta.
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ExtendWith(StatementBudgetExtension.class)
+@Import(StatementMetricsConfig.class)
+public @interface StatementBudget {
+
+    int value();
+}
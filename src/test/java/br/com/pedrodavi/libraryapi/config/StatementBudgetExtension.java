@@ -0,0 +1,43 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.sql.DataSource;
+
+public class StatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(StatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        ApplicationContext applicationContext = SpringExtension.getApplicationContext(context);
+        boolean measured = applicationContext.getBeansOfType(DataSource.class).values().stream()
+                .anyMatch(StatementMetricsDataSource.class::isInstance);
+        if (!measured) {
+            throw new IllegalStateException("@StatementBudget sem StatementMetricsConfig no contexto: anote a classe de teste");
+        }
+        context.getStore(NAMESPACE).put(context.getUniqueId(), StatementMetrics.snapshot());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        StatementMetrics.Snapshot before = context.getStore(NAMESPACE).remove(context.getUniqueId(), StatementMetrics.Snapshot.class);
+        if (before == null || context.getExecutionException().isPresent()) {
+            return;
+        }
+        StatementBudget budget = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestMethod(), StatementBudget.class);
+        if (budget == null) {
+            budget = AnnotatedElementUtils.findMergedAnnotation(context.getRequiredTestClass(), StatementBudget.class);
+        }
+        long executed = StatementMetrics.snapshot().since(before).getStatements();
+        if (budget != null && executed > budget.value()) {
+            throw new AssertionError(String.format("Orçamento de %d comandos SQL excedido: %d executados",
+                    budget.value(), executed));
+        }
+    }
+}
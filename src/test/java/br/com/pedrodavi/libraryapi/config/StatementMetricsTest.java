@@ -0,0 +1,110 @@
+package br.com.pedrodavi.libraryapi.config;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.model.repository.CustomerRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@StatementBudget(2)
+class StatementMetricsTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    Book book;
+
+    Customer customer;
+
+    @BeforeEach
+    public void setUp() {
+        customer = customerRepository.save(Customer.builder().name("Orcamento").email("orcamento@email.com").build());
+        for (int i = 0; i < 5; i++) {
+            Book saved = bookRepository.save(Book.builder().isbn("SM-" + i).title("Titulo " + i).author("Autor").build());
+            loanRepository.save(Loan.builder().book(saved).customer("Orcamento").customerAccount(customer)
+                    .loanDate(LocalDate.now()).build());
+            book = saved;
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve informar a quantidade de comandos SQL e o tempo de banco nos headers")
+    void metricsHeaders() throws Exception {
+        mvc.perform(get("/api/books/" + book.getId()).accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(StatementMetricsFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(header().exists(StatementMetricsFilter.TIME_HEADER));
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos com os livros sem um select por empréstimo")
+    void findLoansWithinBudget() throws Exception {
+        mvc.perform(get("/api/loans?customer=Orcamento&page=0&size=10").accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(5)))
+                .andExpect(jsonPath("content[0].book.isbn").exists())
+                .andExpect(header().string(StatementMetricsFilter.STATEMENTS_HEADER, "1"));
+    }
+
+    @Test
+    @DisplayName("Deve listar os empréstimos do cliente com os livros da página num só select")
+    @StatementBudget(3)
+    void findCustomerLoansWithinBudget() throws Exception {
+        // cliente, página de empréstimos e livros; o count é dispensado com a página incompleta
+        mvc.perform(get("/api/customers/" + customer.getId() + "/loans?page=0&size=10&sort=loanDate").accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(5)))
+                .andExpect(jsonPath("content[0].book.isbn").exists())
+                .andExpect(header().string(StatementMetricsFilter.STATEMENTS_HEADER, "3"));
+    }
+
+    @Test
+    @DisplayName("Deve repetir a busca de livros pelo cache, sem o LIKE e o count")
+    @StatementBudget(4)
+    void findBooksCached() throws Exception {
+        mvc.perform(get("/api/books?isbn=sm-&page=0&size=10").accept(APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books?isbn=SM-&page=0&size=10").accept(APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(5)))
+                .andExpect(jsonPath("totalElements").value(5))
+                .andExpect(header().string(StatementMetricsFilter.STATEMENTS_HEADER, "1"));
+    }
+
+}
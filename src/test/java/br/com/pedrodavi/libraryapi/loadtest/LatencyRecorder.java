@@ -0,0 +1,47 @@
+package br.com.pedrodavi.libraryapi.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Guarda as latências (em microssegundos) de um endpoint para o cálculo dos percentis ao final.
+ */
+class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int errors;
+
+    synchronized void record(long micros, boolean success) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = micros;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("errors", errors);
+        summary.put("throughput", Math.round(count / seconds * 10) / 10.0);
+        summary.put("p50", percentile(sorted, 0.50));
+        summary.put("p99", percentile(sorted, 0.99));
+        summary.put("p999", percentile(sorted, 0.999));
+        summary.put("max", sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
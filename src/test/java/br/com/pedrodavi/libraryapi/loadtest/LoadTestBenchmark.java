@@ -0,0 +1,213 @@
+package br.com.pedrodavi.libraryapi.loadtest;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Teste de carga embarcado: sobe a aplicação com H2, popula livros e empréstimos e dispara
+ * requisições em modelo aberto (taxa de chegada fixa, independente do tempo de resposta).
+ * A latência é medida a partir do instante planejado de cada requisição, então filas no
+ * servidor aparecem nos percentis em vez de reduzirem a carga.
+ *
+ * Parâmetros (-D): loadtest.books, loadtest.loans, loadtest.rate (req/s), loadtest.duration (s)
+ * e loadtest.mix (ex.: search=40,get=30,loan=10,return=10,loansByBook=10).
+ * Os resultados são gravados em target/loadtest e comparados com a execução anterior.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadTestBenchmark {
+
+    static final int BOOKS = Integer.getInteger("loadtest.books", 5_000);
+    static final int LOANS = Integer.getInteger("loadtest.loans", 20_000);
+    static final int RATE = Integer.getInteger("loadtest.rate", 100);
+    static final int DURATION = Integer.getInteger("loadtest.duration", 20);
+    static final String MIX = System.getProperty("loadtest.mix", "search=40,get=30,loan=10,return=10,loansByBook=10");
+    static final Path RESULTS = Paths.get("target", "loadtest");
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Carga com o mix de tráfego de produção")
+    void productionTrafficMix() throws Exception {
+        seed();
+
+        Map<String, Integer> weights = parseMix(MIX);
+        Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+        weights.keySet().forEach(endpoint -> recorders.put(endpoint, new LatencyRecorder()));
+        int totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * DURATION;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            String endpoint = pick(weights, totalWeight);
+            LatencyRecorder recorder = recorders.get(endpoint);
+            inFlight.add(client.sendAsync(request(endpoint), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        long micros = (System.nanoTime() - intended) / 1_000;
+                        recorder.record(micros, error == null && isExpected(endpoint, response.statusCode()));
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", LocalDateTime.now().toString());
+        result.put("config", Map.of("books", BOOKS, "loans", LOANS, "rate", RATE, "duration", DURATION, "mix", MIX));
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        recorders.forEach((endpoint, recorder) -> endpoints.put(endpoint, recorder.summary(seconds)));
+        result.put("endpoints", endpoints);
+
+        report(result);
+    }
+
+    private void seed() {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(Book.builder().isbn("ISBN-" + i).title("Titulo " + (i % 500) + " volume " + i)
+                    .author("Autor " + (i % 300)).build());
+        }
+        books = bookRepository.saveAll(books);
+
+        List<Loan> loans = new ArrayList<>(LOANS);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < LOANS; i++) {
+            Book book = books.get(i % books.size());
+            // apenas o último empréstimo de cada livro fica em aberto
+            boolean returned = i + books.size() < LOANS || random.nextInt(10) < 7;
+            loans.add(Loan.builder().book(book).customer("Cliente " + (i % 2_000))
+                    .email("cliente" + (i % 2_000) + "@email.com")
+                    .loanDate(LocalDate.now().minusDays(random.nextInt(60))).returned(returned).build());
+        }
+        loanRepository.saveAll(loans);
+    }
+
+    private HttpRequest request(String endpoint) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String base = "http://localhost:" + port;
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        switch (endpoint) {
+            case "search":
+                String filter = random.nextBoolean() ? "title=Titulo%20" + random.nextInt(500) : "author=Autor%20" + random.nextInt(300);
+                return builder.uri(URI.create(base + "/api/books?" + filter + "&page=0&size=10")).GET().build();
+            case "get":
+                return builder.uri(URI.create(base + "/api/books/" + (random.nextInt(BOOKS) + 1))).GET().build();
+            case "loan":
+                String loan = String.format("{\"isbn\":\"ISBN-%d\",\"customer\":\"Cliente\",\"email\":\"cliente@email.com\"}", random.nextInt(BOOKS));
+                return builder.uri(URI.create(base + "/api/loans")).header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(loan)).build();
+            case "return":
+                return builder.uri(URI.create(base + "/api/loans/" + (random.nextInt(LOANS) + 1)))
+                        .header("Content-Type", "application/json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"returned\":true}")).build();
+            case "loansByBook":
+                return builder.uri(URI.create(base + "/api/books/" + (random.nextInt(BOOKS) + 1) + "/loans?page=0&size=10")).GET().build();
+            default:
+                throw new IllegalArgumentException("Endpoint desconhecido no mix: " + endpoint);
+        }
+    }
+
+    // empréstimo de livro já emprestado (400) faz parte do tráfego normal
+    private static boolean isExpected(String endpoint, int status) {
+        return status < 400 || ("loan".equals(endpoint) && status == 400);
+    }
+
+    private static String pick(Map<String, Integer> weights, int totalWeight) {
+        int value = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            value -= entry.getValue();
+            if (value < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            weights.put(pair[0], Integer.valueOf(pair[1]));
+        }
+        return weights;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void report(Map<String, Object> result) throws Exception {
+        Files.createDirectories(RESULTS);
+        Map<String, Object> previous = null;
+        try (Stream<Path> files = Files.list(RESULTS)) {
+            List<Path> runs = files.filter(p -> p.getFileName().toString().startsWith("run-")).sorted().collect(Collectors.toList());
+            if (!runs.isEmpty()) {
+                previous = mapper.readValue(runs.get(runs.size() - 1).toFile(), new TypeReference<Map<String, Object>>() { });
+            }
+        }
+        String name = "run-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+        mapper.writerWithDefaultPrettyPrinter().writeValue(RESULTS.resolve(name).toFile(), result);
+
+        Map<String, Map<String, Object>> endpoints = (Map<String, Map<String, Object>>) result.get("endpoints");
+        Map<String, Map<String, Object>> before = previous == null ? Map.of() : (Map<String, Map<String, Object>>) previous.get("endpoints");
+        System.out.printf("%-12s %8s %7s %10s %10s %10s %10s%n", "endpoint", "requests", "errors", "req/s", "p50(us)", "p99(us)", "p999(us)");
+        endpoints.forEach((endpoint, summary) -> {
+            System.out.printf("%-12s %8s %7s %10s %10s %10s %10s%n", endpoint, summary.get("requests"), summary.get("errors"),
+                    summary.get("throughput"), summary.get("p50"), summary.get("p99"), summary.get("p999"));
+            Map<String, Object> old = before.get(endpoint);
+            if (old != null) {
+                System.out.printf("%-12s %8s %7s %10s %10s %10s %10s%n", "  anterior", old.get("requests"), old.get("errors"),
+                        old.get("throughput"), old.get("p50"), old.get("p99"), old.get("p999"));
+            }
+        });
+        System.out.println("Resultado gravado em " + RESULTS.resolve(name));
+    }
+
+}
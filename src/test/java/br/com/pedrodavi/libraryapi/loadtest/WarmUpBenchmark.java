@@ -0,0 +1,202 @@
+package br.com.pedrodavi.libraryapi.loadtest;
+
+import br.com.pedrodavi.libraryapi.LibraryApiApplication;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.WarmUpService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Latência do primeiro minuto de uma instância recém-iniciada, sem e com o aquecimento
+ * (application.warmup.iterations). Cada instância roda numa JVM nova, senão o JIT de uma
+ * execução aqueceria a outra. A carga começa assim que a subida termina, em modelo aberto,
+ * e os percentis saem por janela de 10 s.
+ *
+ * Parâmetros (-D): warmup.iterations, warmup.window (s), warmup.rate (req/s) e warmup.books.
+ * O relatório é gravado em target/warmup.
+ */
+@Tag("benchmark")
+class WarmUpBenchmark {
+
+    static final int ITERATIONS = Integer.getInteger("warmup.iterations", 3_000);
+    static final int WINDOW = Integer.getInteger("warmup.window", 60);
+    static final int RATE = Integer.getInteger("warmup.rate", 50);
+    static final int BOOKS = Integer.getInteger("warmup.books", 2_000);
+    static final int BUCKET_SECONDS = 10;
+    static final Path RESULTS = Paths.get("target", "warmup");
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Latência do primeiro minuto sem e com aquecimento")
+    void firstMinuteLatency() throws Exception {
+        Map<String, Object> cold = runInstance(0);
+        Map<String, Object> warm = runInstance(ITERATIONS);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", LocalDateTime.now().toString());
+        result.put("config", Map.of("iterations", ITERATIONS, "window", WINDOW, "rate", RATE, "books", BOOKS));
+        result.put("cold", cold);
+        result.put("warm", warm);
+        report(result);
+
+        assertThat(cold.get("errors")).isEqualTo(0);
+        assertThat(warm.get("errors")).isEqualTo(0);
+    }
+
+    private Map<String, Object> runInstance(int iterations) throws Exception {
+        Path output = Files.createTempFile("warmup-", ".json");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        // sem o restart do devtools, que trocaria a JVM filha por outro class loader
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "-Dspring.devtools.restart.enabled=false", "-Dwarmup.window=" + WINDOW, "-Dwarmup.rate=" + RATE,
+                "-Dwarmup.books=" + BOOKS, WarmUpBenchmark.class.getName(), String.valueOf(iterations), output.toString())
+                .redirectErrorStream(true)
+                .redirectOutput(new File(output + ".log"))
+                .start();
+        if (!process.waitFor(WINDOW + 300, TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Instância terminou com erro, ver " + output + ".log");
+        }
+        return mapper.readValue(output.toFile(), new TypeReference<Map<String, Object>>() { });
+    }
+
+    // executado na JVM filha: sobe a aplicação, popula e mede as requisições do primeiro minuto
+    public static void main(String[] args) throws Exception {
+        int iterations = Integer.parseInt(args[0]);
+        long startup = System.nanoTime();
+        ConfigurableApplicationContext context = SpringApplication.run(LibraryApiApplication.class,
+                "--server.port=0", "--application.warmup.iterations=" + iterations);
+        long readyMillis = (System.nanoTime() - startup) / 1_000_000;
+
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(Book.builder().isbn("ISBN-" + i).title("Titulo " + (i % 200) + " volume " + i)
+                    .author("Autor " + (i % 100)).build());
+        }
+        // ids lidos do que foi gravado: o aquecimento, mesmo desfeito, consome valores da identity
+        long[] ids = context.getBean(BookRepository.class).saveAll(books).stream().mapToLong(Book::getId).toArray();
+
+        int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        LatencyRecorder[] buckets = new LatencyRecorder[(WINDOW + BUCKET_SECONDS - 1) / BUCKET_SECONDS];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LatencyRecorder();
+        }
+        LatencyRecorder overall = new LatencyRecorder();
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long total = (long) RATE * WINDOW;
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intended = start + i * interval;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LatencyRecorder bucket = buckets[(int) ((intended - start) / TimeUnit.SECONDS.toNanos(BUCKET_SECONDS))];
+            int kind = (int) (i % 4);
+            inFlight.add(client.sendAsync(request(port, kind, ids), HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        long micros = (System.nanoTime() - intended) / 1_000;
+                        boolean success = error == null && response.statusCode() == (kind == 3 ? 400 : 200);
+                        bucket.record(micros, success);
+                        overall.record(micros, success);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("readyMillis", readyMillis);
+        context.getBean(WarmUpService.class).getLastReport().ifPresent(report -> result.put("warmUp", report));
+        Map<String, Object> summary = overall.summary(seconds);
+        result.put("errors", summary.get("errors"));
+        result.put("overall", summary);
+        List<Map<String, Object>> windows = new ArrayList<>();
+        for (LatencyRecorder bucket : buckets) {
+            windows.add(bucket.summary(BUCKET_SECONDS));
+        }
+        result.put("windows", windows);
+        new ObjectMapper().writeValue(new File(args[1]), result);
+
+        System.exit(SpringApplication.exit(context));
+    }
+
+    // busca, detalhe, página enxuta e cadastro inválido (validação do BookDTO, 400)
+    private static HttpRequest request(int port, int kind, long[] ids) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String base = "http://localhost:" + port + "/api/books";
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        switch (kind) {
+            case 0:
+                return builder.uri(URI.create(base + "?title=Titulo%20" + random.nextInt(200) + "&page=0&size=10")).GET().build();
+            case 1:
+                return builder.uri(URI.create(base + "/" + ids[random.nextInt(ids.length)])).GET().build();
+            case 2:
+                return builder.uri(URI.create(base + "?author=Autor%20" + random.nextInt(100) + "&page=0&size=20"))
+                        .header("Accept", "application/vnd.libraryapi.page+json").GET().build();
+            default:
+                return builder.uri(URI.create(base)).header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"title\":\"Sem autor\",\"isbn\":\"X\"}")).build();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void report(Map<String, Object> result) throws Exception {
+        Files.createDirectories(RESULTS);
+        String name = "run-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+        mapper.writerWithDefaultPrettyPrinter().writeValue(RESULTS.resolve(name).toFile(), result);
+
+        Map<String, Object> cold = (Map<String, Object>) result.get("cold");
+        Map<String, Object> warm = (Map<String, Object>) result.get("warm");
+        System.out.printf("pronto em: sem aquecimento %s ms, com aquecimento %s ms%n", cold.get("readyMillis"), warm.get("readyMillis"));
+        System.out.printf("%-10s %12s %12s %12s %12s %12s %12s%n", "janela", "p50 frio", "p50 quente",
+                "p99 frio", "p99 quente", "max frio", "max quente");
+        List<Map<String, Object>> coldWindows = (List<Map<String, Object>>) cold.get("windows");
+        List<Map<String, Object>> warmWindows = (List<Map<String, Object>>) warm.get("windows");
+        for (int i = 0; i < coldWindows.size(); i++) {
+            Map<String, Object> c = coldWindows.get(i);
+            Map<String, Object> w = warmWindows.get(i);
+            System.out.printf("%-10s %12s %12s %12s %12s %12s %12s%n", (i * BUCKET_SECONDS) + "-" + ((i + 1) * BUCKET_SECONDS) + "s",
+                    c.get("p50"), w.get("p50"), c.get("p99"), w.get("p99"), c.get("max"), w.get("max"));
+        }
+        Map<String, Object> c = (Map<String, Object>) cold.get("overall");
+        Map<String, Object> w = (Map<String, Object>) warm.get("overall");
+        System.out.printf("%-10s %12s %12s %12s %12s %12s %12s%n", "total",
+                c.get("p50"), w.get("p50"), c.get("p99"), w.get("p99"), c.get("max"), w.get("max"));
+        System.out.println("Latências em microssegundos; resultado gravado em " + RESULTS.resolve(name));
+    }
+
+}
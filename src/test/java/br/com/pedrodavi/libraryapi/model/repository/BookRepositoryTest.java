@@ -10,6 +10,8 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,6 +66,18 @@ class BookRepositoryTest {
         assertThat(savedBook.getId()).isNotNull();
     }
 
+    @Test
+    @DisplayName("Deve buscar livros por uma lista de Isbn")
+    void findByIsbnIn(){
+        entityManager.persist(createNewBook("001"));
+        entityManager.persist(createNewBook("002"));
+        entityManager.persist(createNewBook("003"));
+
+        List<Book> books = repository.findByIsbnIn(Arrays.asList("003", "001", "999"));
+
+        assertThat(books).extracting(Book::getIsbn).containsExactlyInAnyOrder("001", "003");
+    }
+
     @Test
     @DisplayName("Deve deletar um livro")
     void deleteBook(){
@@ -0,0 +1,105 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.BookView;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.entity.LoanHistory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static br.com.pedrodavi.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class BookViewRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    BookViewRepository repository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    private Book createAndPersistBookView() {
+        Book book = entityManager.persist(createNewBook("001"));
+        assertThat(repository.insertFromBook(book.getId())).isEqualTo(1);
+        return book;
+    }
+
+    private BookView findView(Long id) {
+        entityManager.clear();
+        return entityManager.find(BookView.class, id);
+    }
+
+    @Test
+    @DisplayName("Deve criar e atualizar o detalhe a partir do livro")
+    void insertAndUpdateFromBook() {
+        Book book = createAndPersistBookView();
+
+        BookView view = findView(book.getId());
+        assertThat(view.getIsbn()).isEqualTo("001");
+        assertThat(view.isAvailable()).isTrue();
+        assertThat(view.getLoanCount()).isZero();
+
+        // alteração ainda não gravada: o update do detalhe força o flush do livro antes
+        Book managed = entityManager.find(Book.class, book.getId());
+        managed.setTitle("Novo título");
+        repository.updateFromBook(book.getId());
+
+        view = findView(book.getId());
+        assertThat(view.getTitle()).isEqualTo("Novo título");
+        assertThat(view.getVersion()).isEqualTo(book.getVersion() + 1);
+    }
+
+    @Test
+    @DisplayName("Deve marcar o livro emprestado e liberar só na devolução do empréstimo atual")
+    void loansCreatedAndReturned() {
+        Book book = createAndPersistBookView();
+        Loan loan = entityManager.persist(Loan.builder().book(book).customer("Pedro").loanDate(LocalDate.now()).build());
+
+        repository.loansCreated("Pedro", LocalDate.now(), List.of(book.getId()));
+
+        BookView view = findView(book.getId());
+        assertThat(view.isAvailable()).isFalse();
+        assertThat(view.getCurrentLoanId()).isEqualTo(loan.getId());
+        assertThat(view.getCurrentBorrower()).isEqualTo("Pedro");
+        assertThat(view.getLoanCount()).isEqualTo(1);
+        assertThat(view.getLastLoanDate()).isEqualTo(LocalDate.now());
+
+        assertThat(repository.loanReturned(book.getId(), loan.getId() + 1)).isZero();
+        assertThat(repository.loanReturned(book.getId(), loan.getId())).isEqualTo(1);
+        view = findView(book.getId());
+        assertThat(view.isAvailable()).isTrue();
+        assertThat(view.getCurrentBorrower()).isNull();
+        assertThat(view.getLoanCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve resumir os empréstimos do livro incluindo os arquivados")
+    void summarizeByBookId() {
+        Book book = createAndPersistBookView();
+        Loan loan = entityManager.persist(Loan.builder().book(book).customer("Pedro").loanDate(LocalDate.now()).build());
+        entityManager.persist(LoanHistory.builder().id(loan.getId() + 1000).bookId(book.getId()).customer("Maria")
+                .loanDate(LocalDate.now().minusYears(1)).loanMonth(202001).version(0L).build());
+        entityManager.flush();
+
+        Object[] summary = loanRepository.summarizeByBookId(book.getId()).get(0);
+
+        assertThat(((Number) summary[0]).longValue()).isEqualTo(2);
+        assertThat(((Date) summary[1]).toLocalDate()).isEqualTo(LocalDate.now());
+    }
+}
@@ -0,0 +1,39 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class CustomerRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    CustomerRepository repository;
+
+    @Test
+    @DisplayName("Deve inserir o cliente só se o e-mail ainda não existir")
+    void insertIfAbsent(){
+        entityManager.persistAndFlush(Customer.builder().name("Pedro").email("pedro@email.com").build());
+
+        assertThat(repository.insertIfAbsent("pedro@email.com", "Outro nome")).isZero();
+        assertThat(repository.insertIfAbsent("maria@email.com", "Maria")).isEqualTo(1);
+
+        entityManager.clear();
+        assertThat(repository.count()).isEqualTo(2);
+        assertThat(repository.findByEmail("pedro@email.com")).hasValueSatisfying(c -> assertThat(c.getName()).isEqualTo("Pedro"));
+        assertThat(repository.findByEmail("maria@email.com")).hasValueSatisfying(c -> assertThat(c.getId()).isNotNull());
+    }
+}
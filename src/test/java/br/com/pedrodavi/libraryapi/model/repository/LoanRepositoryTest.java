@@ -1,7 +1,9 @@
 package br.com.pedrodavi.libraryapi.model.repository;
 
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.entity.LoanHistory;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +16,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static br.com.pedrodavi.libraryapi.model.repository.BookRepositoryTest.createNewBook;
@@ -78,6 +82,143 @@ class LoanRepositoryTest {
         assertThat(result).isEmpty();
     }
 
+    @Test
+    @DisplayName("Não deve alterar de novo um empréstimo já devolvido")
+    void updateReturnedOnlyOnTransition(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        Long version = loan.getVersion();
+
+        assertThat(repository.updateReturned(loan.getId(), true)).isEqualTo(1);
+        assertThat(repository.updateReturned(loan.getId(), true)).isZero();
+
+        entityManager.clear();
+        assertThat(entityManager.find(Loan.class, loan.getId()).getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Deve devolver empréstimo somente se a versão não mudou")
+    void updateReturnedWithVersion(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        Long version = loan.getVersion();
+
+        assertThat(repository.updateReturned(loan.getId(), true, version + 1)).isZero();
+        assertThat(repository.updateReturned(loan.getId(), true, version)).isEqualTo(1);
+        assertThat(repository.updateReturned(loan.getId(), true, version)).isZero();
+
+        entityManager.clear();
+        Loan updated = entityManager.find(Loan.class, loan.getId());
+        assertThat(updated.getReturned()).isTrue();
+        assertThat(updated.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos do livro incluindo os arquivados")
+    void findByBookWithHistory(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        LoanHistory archived = LoanHistory.builder().id(loan.getId() + 1000).bookId(loan.getBook().getId())
+                .customer("Maria").loanDate(LocalDate.now().minusYears(1)).loanMonth(202001).version(0L).build();
+        entityManager.persist(archived);
+
+        Page<Loan> result = repository.findByBook(loan.getBook(), PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(Loan::getCustomer).containsExactlyInAnyOrder("Pedro", "Maria");
+        assertThat(result.getContent()).filteredOn(l -> l.getCustomer().equals("Maria"))
+                .allMatch(l -> l.getReturned() && l.getBook().getId().equals(loan.getBook().getId()));
+    }
+
+    @Test
+    @DisplayName("Deve paginar os empréstimos do livro em ordem fixa, dos mais recentes aos arquivados")
+    void findByBookPagesInOrder(){
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        for (int i = 1; i <= 3; i++) {
+            entityManager.persist(LoanHistory.builder().id(loan.getId() + 1000 + i).bookId(loan.getBook().getId())
+                    .customer("Cliente " + i).loanDate(LocalDate.now().minusMonths(i)).loanMonth(202001).version(0L).build());
+        }
+
+        List<String> customers = new ArrayList<>();
+        for (int page = 0; page < 2; page++) {
+            repository.findByBook(loan.getBook(), PageRequest.of(page, 2)).forEach(l -> customers.add(l.getCustomer()));
+        }
+
+        assertThat(customers).containsExactly("Pedro", "Cliente 1", "Cliente 2", "Cliente 3");
+    }
+
+    @Test
+    @DisplayName("Deve buscar empréstimos do cliente incluindo os arquivados")
+    void findByCustomerAccount(){
+        Customer customer = Customer.builder().name("Pedro").email("pedro@email.com").build();
+        entityManager.persist(customer);
+        Loan loan = createAndPersistLoan(LocalDate.now());
+        loan.setCustomerAccount(customer);
+        Book otherBook = createNewBook("002");
+        entityManager.persist(otherBook);
+        entityManager.persist(Loan.builder().book(otherBook).customer("Maria").loanDate(LocalDate.now()).build());
+        LoanHistory archived = LoanHistory.builder().id(loan.getId() + 1000).bookId(otherBook.getId())
+                .customer("Pedro").customerId(customer.getId()).loanDate(LocalDate.now().minusYears(1))
+                .loanMonth(202001).version(0L).build();
+        entityManager.persist(archived);
+        entityManager.flush();
+
+        Page<Loan> result = repository.findByCustomerAccount(customer, PageRequest.of(0, 10));
+
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(l -> l.getBook().getId())
+                .containsExactlyInAnyOrder(loan.getBook().getId(), otherBook.getId());
+    }
+
+    @Test
+    @DisplayName("Deve inserir os empréstimos de vários livros em um único comando")
+    void insertLoans(){
+        Customer customer = Customer.builder().name("Pedro").email("pedro@email.com").build();
+        entityManager.persist(customer);
+        Book first = createNewBook("001");
+        Book second = createNewBook("002");
+        entityManager.persist(first);
+        entityManager.persist(second);
+
+        assertThat(repository.findNotReturnedBookIds(Arrays.asList(first.getId(), second.getId()))).isEmpty();
+
+        int inserted = repository.insertLoans("Pedro", "pedro@email.com", customer.getId(), LocalDate.now(),
+                Arrays.asList(first.getId(), second.getId()));
+
+        assertThat(inserted).isEqualTo(2);
+        assertThat(repository.findNotReturnedBookIds(Arrays.asList(first.getId(), second.getId())))
+                .containsExactlyInAnyOrder(first.getId(), second.getId());
+        List<Loan> loans = repository.findNotReturnedByBookIds(Arrays.asList(first.getId(), second.getId()));
+        assertThat(loans).hasSize(2).allMatch(loan -> loan.getId() != null
+                && loan.getVersion() == 0L
+                && loan.getCustomerAccount().getId().equals(customer.getId())
+                && loan.getEmail().equals("pedro@email.com"));
+    }
+
+    @Test
+    @DisplayName("Deve buscar os empréstimos vencidos em aberto ordenados pelo e-mail do cliente")
+    void findOverdueLoanDates(){
+        Customer customer = Customer.builder().name("Pedro").email("Pedro@email.com").build();
+        entityManager.persist(customer);
+        Loan withAccount = createAndPersistLoan(LocalDate.now().minusDays(10));
+        withAccount.setCustomerAccount(customer);
+        Book second = createNewBook("002");
+        Book third = createNewBook("003");
+        Book fourth = createNewBook("004");
+        entityManager.persist(second);
+        entityManager.persist(third);
+        entityManager.persist(fourth);
+        entityManager.persist(Loan.builder().book(second).customer("Ana").email("ana@email.com")
+                .loanDate(LocalDate.now().minusDays(6)).build());
+        entityManager.persist(Loan.builder().book(third).customer("Ana").email("ana@email.com")
+                .loanDate(LocalDate.now().minusDays(8)).returned(true).build());
+        entityManager.persist(Loan.builder().book(fourth).customer("Ana").email("ana@email.com")
+                .loanDate(LocalDate.now().minusDays(2)).build());
+        entityManager.flush();
+
+        List<Object[]> result = repository.findOverdueLoanDates(LocalDate.now().minusDays(4));
+
+        assertThat(result).extracting(row -> row[1]).containsExactly("ana@email.com", "pedro@email.com");
+        assertThat(result).extracting(row -> row[0]).containsExactly(LocalDate.now().minusDays(6), LocalDate.now().minusDays(10));
+    }
+
     public Loan createAndPersistLoan(LocalDate loanDate){
         Book book = createNewBook("001");
         entityManager.persist(book);
@@ -86,6 +227,37 @@ class LoanRepositoryTest {
         return loan;
     }
 
+    @Test
+    @DisplayName("Deve somar empréstimos ativos e arquivados por livro, os mais emprestados primeiro")
+    void countLoansPerBookWithHistory(){
+        Book active = createNewBook("001");
+        Book archived = createNewBook("002");
+        entityManager.persist(active);
+        entityManager.persist(archived);
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(Loan.builder().book(active).customer("Pedro").loanDate(LocalDate.now()).build());
+        }
+        entityManager.persist(Loan.builder().book(archived).customer("Pedro").loanDate(LocalDate.now()).build());
+        long historyId = 1000;
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(LoanHistory.builder().id(historyId++).bookId(archived.getId()).customer("Pedro").build());
+        }
+        // mais livros só no histórico que o limite
+        for (int i = 0; i < 10; i++) {
+            Book book = createNewBook("1" + i);
+            entityManager.persist(book);
+            entityManager.persist(LoanHistory.builder().id(historyId++).bookId(book.getId()).customer("Pedro").build());
+        }
+        entityManager.flush();
 
+        List<Object[]> result = repository.countLoansPerBook(3);
+
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0)[1]).isEqualTo("002");
+        assertThat(((Number) result.get(0)[2]).longValue()).isEqualTo(4);
+        assertThat(result.get(1)[1]).isEqualTo("001");
+        assertThat(((Number) result.get(1)[2]).longValue()).isEqualTo(3);
+        assertThat(((Number) result.get(2)[2]).longValue()).isEqualTo(1);
+    }
 
-}
\ No newline at end of file
+}
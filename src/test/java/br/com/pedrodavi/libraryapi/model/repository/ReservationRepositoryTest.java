@@ -0,0 +1,76 @@
+package br.com.pedrodavi.libraryapi.model.repository;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDateTime;
+
+import static br.com.pedrodavi.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class ReservationRepositoryTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    ReservationRepository repository;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    private Reservation createAndPersistReservation(Book book, String customer) {
+        Reservation reservation = Reservation.builder().book(book).customer(customer)
+                .email(customer.toLowerCase() + "@email.com").reservedAt(LocalDateTime.now()).build();
+        return entityManager.persist(reservation);
+    }
+
+    @Test
+    @DisplayName("Deve obter as reservas do livro por ordem de chegada")
+    void findFirstByBookOrderById() {
+        Book book = entityManager.persist(createNewBook("001"));
+        Book otherBook = entityManager.persist(createNewBook("002"));
+        createAndPersistReservation(otherBook, "Joao");
+        Reservation first = createAndPersistReservation(book, "Maria");
+        Reservation second = createAndPersistReservation(book, "Pedro");
+
+        assertThat(repository.findFirstByBookOrderById(book)).contains(first);
+        assertThat(repository.countByBookAndIdLessThanEqual(book, second.getId())).isEqualTo(2);
+
+        repository.delete(first);
+        assertThat(repository.findFirstByBookOrderById(book)).contains(second);
+        assertThat(repository.countByBookAndIdLessThanEqual(book, second.getId())).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve checar reserva do livro pelo email ignorando caixa")
+    void existsByBookAndEmailIgnoreCase() {
+        Book book = entityManager.persist(createNewBook("001"));
+        createAndPersistReservation(book, "Maria");
+
+        assertThat(repository.existsByBookAndEmailIgnoreCase(book, "MARIA@email.com")).isTrue();
+        assertThat(repository.existsByBookAndEmailIgnoreCase(book, "pedro@email.com")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve obter o livro travando a linha para a fila de reservas")
+    void findByIdForUpdate() {
+        Book book = entityManager.persist(createNewBook("001"));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(bookRepository.findByIdForUpdate(book.getId())).hasValueSatisfying(b -> assertThat(b.getIsbn()).isEqualTo("001"));
+        assertThat(bookRepository.findByIdForUpdate(book.getId() + 1)).isEmpty();
+    }
+}
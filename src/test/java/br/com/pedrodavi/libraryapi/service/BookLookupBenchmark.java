@@ -0,0 +1,91 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.impl.BookServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Rajadas de buscas simultâneas pelo mesmo livro, contando as consultas que chegam ao
+ * repositório. O repositório simula 5 ms de latência do banco.
+ */
+@Tag("benchmark")
+class BookLookupBenchmark {
+
+    static final int CALLERS = 64;
+    static final int BURSTS = 20;
+    static final long QUERY_MILLIS = 5;
+
+    @Test
+    @DisplayName("Consultas ao banco por rajada de buscas pelo mesmo livro")
+    void lookupBursts() throws Exception {
+        LongAdder queries = new LongAdder();
+        BookRepository repository = mock(BookRepository.class);
+        Book book = Book.builder().id(1L).isbn("001").title("Titulo").author("Autor").version(0L).build();
+        when(repository.findById(1L)).thenAnswer(invocation -> {
+            queries.increment();
+            Thread.sleep(QUERY_MILLIS);
+            return Optional.of(book);
+        });
+        BookService service = new BookServiceImpl(repository, mock(BookSuggestionService.class),
+                mock(ChangeFeedService.class), mock(BookViewService.class), mock(DomainEventBus.class), 0,
+                Duration.ofSeconds(30), "", Duration.ZERO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            for (int round = 0; round < 2; round++) { // a primeira rodada aquece o JIT
+                queries.reset();
+                long start = System.nanoTime();
+                burst(executor, () -> repository.findById(1L));
+                double directMillis = (System.nanoTime() - start) / 1e6 / BURSTS;
+                double directQueries = queries.sum() / (double) BURSTS;
+
+                queries.reset();
+                start = System.nanoTime();
+                burst(executor, () -> service.getById(1L));
+                double coalescedMillis = (System.nanoTime() - start) / 1e6 / BURSTS;
+                double coalescedQueries = queries.sum() / (double) BURSTS;
+
+                System.out.printf("rodada %d (%d chamadas por rajada): direto %.1f consultas, %.1f ms | agrupado %.1f consultas, %.1f ms%n",
+                        round, CALLERS, directQueries, directMillis, coalescedQueries, coalescedMillis);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void burst(ExecutorService executor, Supplier<Optional<Book>> lookup) throws InterruptedException {
+        for (int b = 0; b < BURSTS; b++) {
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(CALLERS);
+            for (int i = 0; i < CALLERS; i++) {
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        lookup.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            start.countDown();
+            done.await();
+        }
+    }
+
+}
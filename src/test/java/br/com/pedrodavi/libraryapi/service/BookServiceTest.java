@@ -2,8 +2,10 @@ package br.com.pedrodavi.libraryapi.service;
 
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
 import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
 import br.com.pedrodavi.libraryapi.service.impl.BookServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,12 +15,18 @@ import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -34,13 +42,26 @@ class BookServiceTest {
     @MockBean
     BookRepository repository;
 
+    @MockBean
+    BookSuggestionService suggestionService;
+
+    @MockBean
+    ChangeFeedService changeFeedService;
+
+    @MockBean
+    BookViewService bookViewService;
+
+    @MockBean
+    DomainEventBus eventBus;
+
     private Book createValidBook() {
         return Book.builder().author("Pedro").title("Livro API").isbn("001").build();
     }
 
     @BeforeEach
     public void setUp(){
-        this.service = new BookServiceImpl(repository);
+        // cache de buscas desligado: os testes de find conferem a consulta ao repositório
+        this.service = new BookServiceImpl(repository, suggestionService, changeFeedService, bookViewService, eventBus, 0, Duration.ofSeconds(30), "", Duration.ZERO);
     }
 
     @Test
@@ -56,6 +77,32 @@ class BookServiceTest {
         assertThat(savedBook.getAuthor()).isEqualTo("Pedro");
         assertThat(savedBook.getTitle()).isEqualTo("Livro API");
         assertThat(savedBook.getIsbn()).isEqualTo("001");
+        verify(suggestionService).bookSaved(savedBook);
+        verify(changeFeedService).record(ChangeLog.EntityType.BOOK, 1L, ChangeLog.Operation.CREATED, null);
+        verify(eventBus).publish(DomainEvent.Type.BOOK_CREATED, 1L, null);
+        verify(bookViewService).bookSaved(1L);
+    }
+
+    @Test
+    @DisplayName("Deve atualizar as sugestões só depois do commit da escrita")
+    void suggestionsAfterCommit(){
+        Book book = createValidBook();
+        Book saved = Book.builder().id(1L).author("Pedro").title("Livro API").isbn("001").build();
+        when(repository.save(book)).thenReturn(saved);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.save(book);
+            service.delete(saved);
+            verifyNoInteractions(suggestionService);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            verify(suggestionService).bookSaved(saved);
+            verify(suggestionService).bookDeleted(1L);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -108,6 +155,10 @@ class BookServiceTest {
         Book book = Book.builder().id(1L).build();
         assertDoesNotThrow(() -> service.delete(book));
         verify(repository, times(1)).delete(book);
+        verify(suggestionService).bookDeleted(1L);
+        verify(changeFeedService).record(ChangeLog.EntityType.BOOK, 1L, ChangeLog.Operation.DELETED, null);
+        verify(bookViewService).bookDeleted(1L);
+        verify(eventBus).publish(DomainEvent.Type.BOOK_DELETED, 1L, null);
     }
 
     @Test
@@ -135,6 +186,7 @@ class BookServiceTest {
         assertThat(book.getTitle()).isEqualTo(updatedBook.getTitle());
         assertThat(book.getAuthor()).isEqualTo(updatedBook.getAuthor());
         assertThat(book.getIsbn()).isEqualTo(updatedBook.getIsbn());
+        verify(suggestionService).bookSaved(updatedBook);
     }
 
     @Test
@@ -145,6 +197,30 @@ class BookServiceTest {
         verify(repository, never()).save(book);
     }
 
+    @Test
+    @DisplayName("Deve atualizar um livro com update condicional")
+    void updateDetails() {
+        when(repository.updateDetails(1L, "Titulo", "Autor", 2L)).thenReturn(1);
+        when(repository.findIsbnById(1L)).thenReturn(Optional.of("001"));
+
+        Optional<Book> updated = service.updateDetails(1L, "Titulo", "Autor", 2L);
+        assertThat(updated).isPresent();
+        assertThat(updated.get().getIsbn()).isEqualTo("001");
+        assertThat(updated.get().getVersion()).isEqualTo(3L);
+        verify(repository, never()).findById(anyLong());
+        verify(eventBus).publish(DomainEvent.Type.BOOK_UPDATED, 1L, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve lançar conflito ao atualizar livro com versão desatualizada")
+    void updateDetailsConflict() {
+        when(repository.updateDetails(1L, "Titulo", "Autor", 2L)).thenReturn(0);
+        when(repository.existsById(1L)).thenReturn(true);
+
+        Throwable exception = catchThrowable(() -> service.updateDetails(1L, "Titulo", "Autor", 2L));
+        assertThat(exception).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+
     @Test
     @DisplayName("Deve filtrar livros pelos params do get")
     void findBook(){
@@ -165,6 +241,83 @@ class BookServiceTest {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve responder buscas repetidas pelo cache até o catálogo mudar")
+    void findBookCached(){
+        BookServiceImpl cachedService = new BookServiceImpl(repository, suggestionService, changeFeedService, bookViewService, eventBus, 10, Duration.ofSeconds(30), "", Duration.ZERO);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cachedService.bindTo(registry);
+        Book first = Book.builder().id(1L).title("Livro A").build();
+        Book second = Book.builder().id(2L).title("Livro B").build();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+
+        when(repository.findAll(any(Example.class), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(first, second), pageRequest, 5));
+        when(repository.findAllById(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(second, first));
+
+        cachedService.find(Book.builder().title("Livro").build(), pageRequest);
+        Page<Book> cached = cachedService.find(Book.builder().title("LIVRO").build(), pageRequest);
+
+        assertThat(cached.getContent()).containsExactly(first, second);
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+        verify(repository, times(1)).findAll(any(Example.class), any(PageRequest.class));
+
+        when(repository.existsByIsbn(anyString())).thenReturn(false);
+        when(repository.save(any(Book.class))).thenReturn(Book.builder().id(3L).build());
+        cachedService.save(createValidBook());
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+
+        verify(repository, times(2)).findAll(any(Example.class), any(PageRequest.class));
+        assertThat(registry.get("books.search.cache").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("books.search.cache").tag("result", "miss").functionCounter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache de buscas com escritas de livros de outras instâncias e pelo ttl")
+    void findBookCacheFollowsChangeFeed() throws Exception {
+        BookServiceImpl cachedService = new BookServiceImpl(repository, suggestionService, changeFeedService, bookViewService, eventBus,
+                10, Duration.ofMillis(200), "", Duration.ZERO);
+        Book book = Book.builder().id(1L).title("Livro A").build();
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findAll(any(Example.class), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(book), pageRequest, 1));
+        when(repository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(book));
+        when(changeFeedService.currentSequence(ChangeLog.EntityType.BOOK)).thenReturn(7L);
+        cachedService.syncSearchCache();
+
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+        cachedService.syncSearchCache(); // nenhuma escrita nova
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+        verify(repository, times(1)).findAll(any(Example.class), any(PageRequest.class));
+
+        when(changeFeedService.currentSequence(ChangeLog.EntityType.BOOK)).thenReturn(9L);
+        cachedService.syncSearchCache();
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+        verify(repository, times(2)).findAll(any(Example.class), any(PageRequest.class));
+
+        Thread.sleep(300);
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+        verify(repository, times(3)).findAll(any(Example.class), any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Não deve guardar no cache buscas lidas da réplica dentro da tolerância de atraso")
+    void findBookCacheSkipsLaggingReplica() {
+        BookServiceImpl cachedService = new BookServiceImpl(repository, suggestionService, changeFeedService, bookViewService, eventBus,
+                10, Duration.ofSeconds(30), "jdbc:h2:mem:replica", Duration.ofMinutes(1));
+        PageRequest pageRequest = PageRequest.of(0, 2);
+        when(repository.findAll(any(Example.class), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(Arrays.asList(Book.builder().id(1L).build()), pageRequest, 1));
+        when(repository.findAllById(Arrays.asList(1L))).thenReturn(Arrays.asList(Book.builder().id(1L).build()));
+        when(changeFeedService.currentSequence(ChangeLog.EntityType.BOOK)).thenReturn(9L);
+        cachedService.syncSearchCache();
+
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+        cachedService.find(Book.builder().title("livro").build(), pageRequest);
+
+        verify(repository, times(2)).findAll(any(Example.class), any(PageRequest.class));
+    }
+
     @Test
     @DisplayName("Deve obter um livro pelo Isbn")
     void getBookByIsbn() {
@@ -177,4 +330,98 @@ class BookServiceTest {
         verify(repository, times(1)).findByIsbn(isbn);
     }
 
+    @Test
+    @DisplayName("Deve compartilhar uma única consulta entre buscas simultâneas do mesmo Isbn")
+    void concurrentGetBookByIsbn() throws Exception {
+        String isbn = "123123";
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findByIsbn(isbn)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return Optional.of(Book.builder().id(1L).isbn(isbn).version(0L).build());
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<Future<Optional<Book>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> service.getBookByIsbn(isbn)));
+            loading.await();
+            List<Thread> waiting = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    waiting.add(Thread.currentThread());
+                    return service.getBookByIsbn(isbn);
+                }));
+            }
+            // libera a carga só quando todas as outras chamadas estiverem aguardando por ela
+            while (waiting.size() < 4 || waiting.stream().anyMatch(t -> t.getState() != Thread.State.WAITING)) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            List<Book> books = new ArrayList<>();
+            for (Future<Optional<Book>> result : results) {
+                books.add(result.get(5, TimeUnit.SECONDS).get());
+            }
+            assertThat(books).allMatch(b -> b.getId().equals(1L) && b.getIsbn().equals(isbn));
+            assertThat(books.stream().distinct()).hasSize(1);
+            assertThat(books.stream().map(System::identityHashCode).distinct()).hasSize(5);
+            verify(repository, times(1)).findByIsbn(isbn);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve buscar vários livros por id na ordem pedida, com vazio para os inexistentes")
+    void getByIds() {
+        Book first = Book.builder().id(1L).isbn("001").build();
+        Book third = Book.builder().id(3L).isbn("003").build();
+        when(repository.findAllById(Arrays.asList(3L, 2L, 1L))).thenReturn(Arrays.asList(first, third));
+
+        List<Optional<Book>> books = service.getByIds(Arrays.asList(3L, 2L, 1L, 3L));
+
+        assertThat(books).containsExactly(Optional.of(third), Optional.empty(), Optional.of(first), Optional.of(third));
+        verify(repository, times(1)).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve dividir em blocos as buscas por Isbn muito grandes")
+    void getByIsbnsInChunks() {
+        List<String> isbns = new ArrayList<>();
+        for (int i = 0; i < BookServiceImpl.LOOKUP_CHUNK_SIZE + 1; i++) {
+            isbns.add("isbn-" + i);
+        }
+        when(repository.findByIsbnIn(anyList())).thenReturn(Arrays.asList(Book.builder().id(1L).isbn("isbn-0").build()));
+
+        List<Optional<Book>> books = service.getByIsbns(isbns);
+
+        assertThat(books).hasSize(isbns.size());
+        assertThat(books.get(0)).isPresent();
+        assertThat(books.subList(1, books.size())).allMatch(Optional::isEmpty);
+        verify(repository, times(2)).findByIsbnIn(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao buscar mais livros do que o limite")
+    void getByIdsOverLimit() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i <= BookServiceImpl.LOOKUP_MAX_KEYS; i++) {
+            ids.add(i);
+        }
+        Throwable exception = catchThrowable(() -> service.getByIds(ids));
+        assertThat(exception).isInstanceOf(BusinessException.class);
+        verify(repository, never()).findAllById(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve consultar novamente depois que a busca anterior terminou")
+    void sequentialGetById() {
+        when(repository.findById(1L)).thenReturn(Optional.of(Book.builder().id(1L).build()));
+        service.getById(1L);
+        service.getById(1L);
+        verify(repository, times(2)).findById(1L);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.impl.BookSuggestionServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Latência das sugestões por prefixo com um catálogo de 100 mil livros em memória,
+ * simulando a digitação de 1 a 4 letras.
+ */
+@Tag("benchmark")
+class BookSuggestionBenchmark {
+
+    static final int BOOKS = 100_000;
+    static final int QUERIES = 50_000;
+    static final String[] WORDS = { "amor", "aventura", "banco", "casa", "dados", "guerra", "historia", "java",
+            "livro", "mar", "noite", "pedra", "programacao", "rio", "sistemas", "tempo", "vida", "viagem" };
+
+    @Test
+    @DisplayName("Latência das sugestões por prefixo")
+    void suggestLatency() {
+        BookSuggestionService service = new BookSuggestionServiceImpl(mock(BookRepository.class), mock(ChangeFeedService.class), Tenants.single());
+        Random random = new Random(42);
+        long start = System.nanoTime();
+        for (long id = 1; id <= BOOKS; id++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            service.bookSaved(Book.builder().id(id).title(title).author("Autor " + random.nextInt(5_000)).build());
+        }
+        System.out.printf("indexação de %d livros: %.0f ms%n", BOOKS, (System.nanoTime() - start) / 1e6);
+
+        for (int round = 0; round < 2; round++) { // a primeira rodada aquece o JIT
+            long[] latencies = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                String prefix = word.substring(0, 1 + random.nextInt(Math.min(4, word.length())));
+                long begin = System.nanoTime();
+                service.suggest(prefix, 10);
+                latencies[i] = System.nanoTime() - begin;
+            }
+            Arrays.sort(latencies);
+            System.out.printf("rodada %d: p50 %.1f us | p99 %.1f us | max %.1f us%n", round,
+                    latencies[QUERIES / 2] / 1e3, latencies[QUERIES * 99 / 100] / 1e3, latencies[QUERIES - 1] / 1e3);
+        }
+    }
+
+}
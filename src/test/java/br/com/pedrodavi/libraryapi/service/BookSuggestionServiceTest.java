@@ -0,0 +1,141 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookSuggestionDTO;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.impl.BookSuggestionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class BookSuggestionServiceTest {
+
+    BookSuggestionService service;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    ChangeFeedService changeFeedService;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+    }
+
+    private Book book(long id, String title, String author) {
+        return Book.builder().id(id).title(title).author(author).isbn(String.valueOf(id)).build();
+    }
+
+    @Test
+    @DisplayName("Deve sugerir títulos e autores pelo prefixo, ignorando caixa e acentos")
+    void suggestByPrefix() {
+        service.bookSaved(book(1L, "Harry Potter e a Pedra Filosofal", "J. K. Rowling"));
+        service.bookSaved(book(2L, "Histórias Extraordinárias", "Edgar Allan Poe"));
+        service.bookSaved(book(3L, "O Hobbit", "J. R. R. Tolkien"));
+
+        List<BookSuggestionDTO> suggestions = service.suggest("HIST", 10);
+
+        assertThat(suggestions).extracting(BookSuggestionDTO::getText).containsExactly("Histórias Extraordinárias");
+        assertThat(suggestions.get(0).getType()).isEqualTo(BookSuggestionServiceImpl.TITLE);
+        assertThat(suggestions.get(0).getBookId()).isEqualTo(2L);
+        assertThat(service.suggest("j. r", 10)).extracting(BookSuggestionDTO::getType)
+                .containsExactly(BookSuggestionServiceImpl.AUTHOR);
+    }
+
+    @Test
+    @DisplayName("Deve sugerir pelo início de palavras do meio do texto depois do início do texto")
+    void suggestByWordPrefix() {
+        service.bookSaved(book(1L, "Harry Potter e a Pedra Filosofal", "J. K. Rowling"));
+        service.bookSaved(book(2L, "Pedagogia do Oprimido", "Paulo Freire"));
+
+        List<BookSuggestionDTO> suggestions = service.suggest("ped", 10);
+
+        assertThat(suggestions).extracting(BookSuggestionDTO::getText)
+                .containsExactly("Pedagogia do Oprimido", "Harry Potter e a Pedra Filosofal");
+    }
+
+    @Test
+    @DisplayName("Deve limitar as sugestões e não repetir o mesmo autor de vários livros")
+    void suggestLimitAndDistinct() {
+        for (long id = 1; id <= 20; id++) {
+            service.bookSaved(book(id, "Livro " + id, "Pedro Davi"));
+        }
+
+        assertThat(service.suggest("livro", 5)).hasSize(5);
+        assertThat(service.suggest("pedro", 10)).hasSize(1);
+        assertThat(service.suggest("", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualização e exclusão de livros")
+    void updateAndDelete() {
+        service.bookSaved(book(1L, "Titulo Antigo", "Pedro"));
+        service.bookSaved(book(1L, "Titulo Novo", "Pedro"));
+
+        assertThat(service.suggest("titulo", 10)).extracting(BookSuggestionDTO::getText).containsExactly("Titulo Novo");
+
+        service.bookDeleted(1L);
+
+        assertThat(service.suggest("titulo", 10)).isEmpty();
+        assertThat(service.suggest("pedro", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve carregar as sugestões a partir do banco")
+    void reconcile() {
+        when(repository.findAll(any(Pageable.class))).thenReturn(
+                new PageImpl<>(Arrays.asList(book(1L, "Dom Casmurro", "Machado de Assis")), PageRequest.of(0, 1000), 1));
+
+        service.reconcile();
+
+        assertThat(service.suggest("mach", 10)).extracting(BookSuggestionDTO::getText).containsExactly("Machado de Assis");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as mudanças de livros do feed feitas por outras instâncias")
+    void syncChanges() {
+        when(changeFeedService.currentSequence()).thenReturn(10L);
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(
+                Arrays.asList(book(1L, "Dom Casmurro", "Machado de Assis"), book(2L, "Memórias Póstumas", "Machado de Assis")),
+                PageRequest.of(0, 1000), 2));
+        service.reconcile();
+        when(changeFeedService.getChanges(eq(10L), anyInt())).thenReturn(Arrays.asList(
+                ChangeLog.builder().id(11L).entityType(ChangeLog.EntityType.BOOK).entityId(1L).build(),
+                ChangeLog.builder().id(12L).entityType(ChangeLog.EntityType.LOAN).entityId(7L).build(),
+                ChangeLog.builder().id(13L).entityType(ChangeLog.EntityType.BOOK).entityId(2L).build()));
+        when(repository.findAllById(anyIterable())).thenReturn(Arrays.asList(book(1L, "Dom Casmurro", "Joaquim Maria")));
+
+        service.syncChanges();
+
+        assertThat(service.suggest("mem", 10)).isEmpty();
+        assertThat(service.suggest("joaq", 10)).extracting(BookSuggestionDTO::getText).containsExactly("Joaquim Maria");
+
+        when(changeFeedService.getChanges(eq(13L), anyInt())).thenReturn(Collections.emptyList());
+        service.syncChanges();
+        assertThat(service.suggest("dom", 10)).hasSize(1);
+    }
+
+}
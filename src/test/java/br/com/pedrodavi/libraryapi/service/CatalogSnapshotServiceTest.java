@@ -0,0 +1,177 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.BookSuggestionDTO;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.service.impl.BookSuggestionServiceImpl;
+import br.com.pedrodavi.libraryapi.service.impl.CatalogSnapshotServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class CatalogSnapshotServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @MockBean
+    BookRepository repository;
+
+    @MockBean
+    ChangeFeedService changeFeedService;
+
+    BookSuggestionService suggestionService;
+
+    Path file;
+
+    @BeforeEach
+    public void setUp() {
+        this.suggestionService = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+        this.file = directory.resolve("catalog.snapshot");
+    }
+
+    private CatalogSnapshotService newService(BookSuggestionService suggestionService) {
+        return new CatalogSnapshotServiceImpl(repository, suggestionService, changeFeedService, Tenants.single(), file.toString(), 30);
+    }
+
+    private Book book(long id, String title, String author) {
+        return Book.builder().id(id).version(0L).title(title).author(author).isbn(String.valueOf(id)).build();
+    }
+
+    private void writeSnapshot(long sequence) {
+        when(changeFeedService.currentSequence()).thenReturn(sequence);
+        when(repository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(Arrays.asList(
+                book(1L, "Histórias Extraordinárias", "Edgar Allan Poe"),
+                book(2L, "O Hobbit", null)), PageRequest.of(0, 1000), 2));
+        newService(suggestionService).writeSnapshot();
+    }
+
+    @Test
+    @DisplayName("Deve gravar o snapshot do catálogo e carregá-lo nas sugestões")
+    void writeAndLoadSnapshot() {
+        writeSnapshot(10L);
+        assertThat(file).exists();
+
+        BookSuggestionService loaded = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+        assertThat(newService(loaded).loadSnapshot()).isTrue();
+
+        assertThat(loaded.suggest("hist", 10)).extracting(BookSuggestionDTO::getBookId).containsExactly(1L);
+        assertThat(loaded.suggest("edgar", 10)).extracting(BookSuggestionDTO::getText).containsExactly("Edgar Allan Poe");
+        assertThat(loaded.suggest("hobbit", 10)).extracting(BookSuggestionDTO::getBookId).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deve ignorar snapshot à frente do feed de mudanças do banco")
+    void rejectSnapshotAheadOfDatabase() {
+        writeSnapshot(10L);
+        when(changeFeedService.currentSequence()).thenReturn(3L);
+
+        BookSuggestionService loaded = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+        assertThat(newService(loaded).loadSnapshot()).isFalse();
+        assertThat(loaded.suggest("hist", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar snapshot mais antigo que a retenção do feed de mudanças")
+    void rejectSnapshotOlderThanRetention() throws Exception {
+        writeSnapshot(10L);
+        // criação (epoch ms) logo depois de MAGIC e FORMAT_VERSION
+        try (RandomAccessFile snapshot = new RandomAccessFile(file.toFile(), "rw")) {
+            snapshot.seek(8);
+            snapshot.writeLong(System.currentTimeMillis() - Duration.ofDays(31).toMillis());
+        }
+
+        assertThat(newService(suggestionService).loadSnapshot()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar snapshot cujas mudanças seguintes já foram expurgadas do feed")
+    void rejectSnapshotBehindPurgedChanges() {
+        writeSnapshot(10L);
+        when(changeFeedService.currentSequence()).thenReturn(30L);
+        when(changeFeedService.firstSequence()).thenReturn(20L);
+
+        BookSuggestionService loaded = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+        assertThat(newService(loaded).loadSnapshot()).isFalse();
+        assertThat(loaded.suggest("hist", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Não deve sobrescrever na reconciliação uma escrita mais nova do livro")
+    void reconcileKeepsNewerWrite() {
+        writeSnapshot(10L);
+        BookSuggestionService loaded = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+        CatalogSnapshotService service = newService(loaded);
+        service.loadSnapshot();
+
+        when(changeFeedService.getChanges(eq(10L), anyInt())).thenReturn(Collections.singletonList(
+                ChangeLog.builder().id(11L).entityType(ChangeLog.EntityType.BOOK).entityId(1L).build()));
+        when(changeFeedService.getChanges(eq(11L), anyInt())).thenReturn(Collections.emptyList());
+        // a reconciliação leu a versão 1; a versão 2 foi gravada e aplicada antes dela terminar
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            loaded.bookSaved(Book.builder().id(1L).version(2L).title("Contos Completos").author("Edgar Allan Poe").build());
+            return Collections.singletonList(Book.builder().id(1L).version(1L).title("Histórias").author("Edgar Allan Poe").build());
+        });
+
+        service.reconcileChanges();
+
+        assertThat(loaded.suggest("contos", 10)).extracting(BookSuggestionDTO::getBookId).containsExactly(1L);
+        assertThat(loaded.suggest("hist", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar arquivo que não é snapshot do catálogo")
+    void rejectInvalidFile() throws Exception {
+        Files.write(file, "nao e snapshot".getBytes());
+        assertThat(newService(suggestionService).loadSnapshot()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve aplicar as mudanças de livros feitas depois do snapshot")
+    void reconcileChangesSinceSnapshot() {
+        writeSnapshot(10L);
+        BookSuggestionService loaded = new BookSuggestionServiceImpl(repository, changeFeedService, Tenants.single());
+        CatalogSnapshotService service = newService(loaded);
+        service.loadSnapshot();
+
+        when(changeFeedService.getChanges(eq(10L), anyInt())).thenReturn(Arrays.asList(
+                ChangeLog.builder().id(11L).entityType(ChangeLog.EntityType.BOOK).entityId(1L).build(),
+                ChangeLog.builder().id(12L).entityType(ChangeLog.EntityType.LOAN).entityId(7L).build(),
+                ChangeLog.builder().id(13L).entityType(ChangeLog.EntityType.BOOK).entityId(3L).build()));
+        when(changeFeedService.getChanges(eq(13L), anyInt())).thenReturn(Collections.emptyList());
+        // livro 1 foi excluído, livro 3 foi criado depois do snapshot
+        when(repository.findAllById(anyIterable())).thenReturn(Collections.singletonList(book(3L, "Dom Casmurro", "Machado de Assis")));
+
+        service.reconcileChanges();
+
+        assertThat(loaded.suggest("hist", 10)).isEmpty();
+        assertThat(loaded.suggest("dom", 10)).extracting(BookSuggestionDTO::getBookId).containsExactly(3L);
+        assertThat(loaded.suggest("hobbit", 10)).extracting(BookSuggestionDTO::getBookId).containsExactly(2L);
+    }
+}
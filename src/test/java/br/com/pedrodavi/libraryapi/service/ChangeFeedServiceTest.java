@@ -0,0 +1,97 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.repository.ChangeLogRepository;
+import br.com.pedrodavi.libraryapi.service.impl.ChangeFeedServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ChangeFeedServiceTest {
+
+    ChangeFeedServiceImpl service;
+
+    @MockBean
+    ChangeLogRepository repository;
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ChangeFeedServiceImpl(repository, Duration.ofSeconds(10), 30);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    private ChangeLog change(long id, LocalDateTime changedAt) {
+        return ChangeLog.builder().id(id).entityType(ChangeLog.EntityType.BOOK).entityId(1L)
+                .operation(ChangeLog.Operation.UPDATED).changedAt(changedAt).build();
+    }
+
+    @Test
+    @DisplayName("Deve retornar as mudanças em sequência depois da posição informada")
+    void getChanges() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findByIdGreaterThanOrderById(eq(3L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(change(4, now), change(5, now)));
+
+        List<ChangeLog> changes = service.getChanges(3, 100);
+
+        assertThat(changes).extracting(ChangeLog::getId).containsExactly(4L, 5L);
+    }
+
+    @Test
+    @DisplayName("Deve parar no buraco recente da sequência, que pode ser uma transação ainda não confirmada")
+    void stopAtRecentGap() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findByIdGreaterThanOrderById(eq(3L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(change(4, now), change(6, now)));
+
+        assertThat(service.getChanges(3, 100)).extracting(ChangeLog::getId).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Deve passar pelo buraco antigo da sequência, de transação desfeita")
+    void skipOldGap() {
+        LocalDateTime old = LocalDateTime.now().minusMinutes(1);
+        when(repository.findByIdGreaterThanOrderById(eq(3L), any(Pageable.class)))
+                .thenReturn(Arrays.asList(change(4, old), change(6, old)));
+
+        assertThat(service.getChanges(3, 100)).extracting(ChangeLog::getId).containsExactly(4L, 6L);
+    }
+
+    @Test
+    @DisplayName("Deve gravar a mudança e avisar os ouvintes")
+    void recordNotifiesListeners() throws InterruptedException {
+        CountDownLatch notified = new CountDownLatch(1);
+        service.addListener(notified::countDown);
+
+        service.record(ChangeLog.EntityType.LOAN, 7L, ChangeLog.Operation.CREATED, 0L);
+
+        verify(repository).save(any(ChangeLog.class));
+        assertThat(notified.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+}
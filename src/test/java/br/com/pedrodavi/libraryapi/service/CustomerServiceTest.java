@@ -0,0 +1,55 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
+import br.com.pedrodavi.libraryapi.model.repository.CustomerRepository;
+import br.com.pedrodavi.libraryapi.service.impl.CustomerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class CustomerServiceTest {
+
+    CustomerService service;
+
+    @MockBean
+    CustomerRepository repository;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new CustomerServiceImpl(repository);
+    }
+
+    @Test
+    @DisplayName("Deve criar o cliente pelo e-mail normalizado")
+    void getOrCreate(){
+        Customer created = Customer.builder().id(1L).name("Pedro").email("pedro@email.com").build();
+        when(repository.findByEmail("pedro@email.com")).thenReturn(Optional.empty(), Optional.of(created));
+
+        Customer customer = service.getOrCreate("Pedro", " Pedro@Email.COM ");
+
+        assertThat(customer.getId()).isEqualTo(1L);
+        assertThat(customer.getEmail()).isEqualTo("pedro@email.com");
+        verify(repository).insertIfAbsent("pedro@email.com", "Pedro");
+    }
+
+    @Test
+    @DisplayName("Não deve inserir quando o cliente já existir")
+    void getExisting(){
+        Customer existing = Customer.builder().id(7L).name("Pedro").email("pedro@email.com").build();
+        when(repository.findByEmail("pedro@email.com")).thenReturn(Optional.of(existing));
+
+        assertThat(service.getOrCreate("Outro nome", "pedro@email.com").getId()).isEqualTo(7L);
+        verify(repository, never()).insertIfAbsent(anyString(), anyString());
+    }
+}
@@ -0,0 +1,237 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.service.impl.DomainEventBusImpl;
+import br.com.pedrodavi.libraryapi.service.impl.DomainEventMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vazão e custo na thread de quem publica para três formas de entregar os eventos de domínio
+ * aos ouvintes: chamada direta (síncrona), uma tarefa por ouvinte num ExecutorService e o
+ * DomainEventBusImpl. Dois cenários:
+ *
+ * - vazão: 4 produtores publicando sem pausa para ouvintes baratos (métricas e uma soma);
+ * - rajadas: 1 produtor publicando rajadas de 1000 eventos com pausa de 5 ms, com um ouvinte
+ *   que gasta ~2 µs por evento, como uma notificação. Mede a latência de cada publish.
+ */
+@Tag("benchmark")
+class DomainEventBusBenchmark {
+
+    static final int PRODUCERS = 4;
+    static final int EVENTS_PER_PRODUCER = Integer.getInteger("events.count", 1_000_000);
+    static final int BURSTS = 300;
+    static final int BURST_SIZE = 1_000;
+    static final long BURST_PAUSE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    static final long SLOW_LISTENER_NANOS = 2_000;
+
+    @Test
+    @DisplayName("Vazão e latência de publicação dos eventos de domínio")
+    void eventBusThroughput() throws Exception {
+        for (int round = 0; round < 2; round++) { // a primeira rodada aquece o JIT
+            System.out.printf("rodada %d%n", round);
+            System.out.printf("%-12s %16s %18s%n", "vazão", "eventos/s", "ns por publish");
+            throughput("síncrono", SyncDispatcher::new);
+            throughput("executor", ExecutorDispatcher::new);
+            throughput("ring buffer", BusDispatcher::new);
+
+            System.out.printf("%-12s %12s %12s %12s %14s%n", "rajadas", "p50 (µs)", "p99 (µs)", "max (µs)", "entrega (ms)");
+            bursts("síncrono", SyncDispatcher::new);
+            bursts("executor", ExecutorDispatcher::new);
+            bursts("ring buffer", BusDispatcher::new);
+        }
+    }
+
+    private void throughput(String name, DispatcherFactory factory) throws Exception {
+        ChecksumListener checksum = new ChecksumListener();
+        DomainEventMetrics metrics = new DomainEventMetrics();
+        Dispatcher dispatcher = factory.create(Arrays.asList(metrics, checksum));
+        ExecutorService producers = Executors.newFixedThreadPool(PRODUCERS);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] publishNanos = new long[PRODUCERS];
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.execute(() -> {
+                await(start);
+                long begin = System.nanoTime();
+                for (long i = 0; i < EVENTS_PER_PRODUCER; i++) {
+                    dispatcher.publish(DomainEvent.Type.LOAN_CREATED, i, 0L);
+                }
+                publishNanos[producer] = System.nanoTime() - begin;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        producers.shutdown();
+        producers.awaitTermination(5, TimeUnit.MINUTES);
+        dispatcher.close();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+
+        long total = (long) PRODUCERS * EVENTS_PER_PRODUCER;
+        assertThat(metrics.getCount(DomainEvent.Type.LOAN_CREATED)).isEqualTo(total);
+        assertThat(checksum.sum).isEqualTo(PRODUCERS * ((long) EVENTS_PER_PRODUCER * (EVENTS_PER_PRODUCER - 1) / 2));
+        System.out.printf("%-12s %16.0f %18.1f%n", name, total / seconds,
+                Arrays.stream(publishNanos).average().orElse(0) / EVENTS_PER_PRODUCER);
+    }
+
+    private void bursts(String name, DispatcherFactory factory) throws Exception {
+        SlowListener slow = new SlowListener();
+        Dispatcher dispatcher = factory.create(List.of(slow));
+        long[] latencies = new long[BURSTS * BURST_SIZE];
+        int n = 0;
+        long begin = System.nanoTime();
+        for (int b = 0; b < BURSTS; b++) {
+            for (int i = 0; i < BURST_SIZE; i++) {
+                long start = System.nanoTime();
+                dispatcher.publish(DomainEvent.Type.LOAN_RETURNED, (long) i, 1L);
+                latencies[n++] = System.nanoTime() - start;
+            }
+            LockSupport.parkNanos(BURST_PAUSE_NANOS);
+        }
+        dispatcher.close();
+        double deliveryMillis = (System.nanoTime() - begin) / 1e6;
+
+        assertThat(slow.count).isEqualTo(latencies.length);
+        Arrays.sort(latencies);
+        System.out.printf("%-12s %12.2f %12.2f %12.2f %14.0f%n", name, latencies[latencies.length / 2] / 1e3,
+                latencies[(int) (latencies.length * 0.99)] / 1e3, latencies[latencies.length - 1] / 1e3, deliveryMillis);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    interface Dispatcher {
+
+        void publish(DomainEvent.Type type, Long entityId, Long entityVersion);
+
+        // espera a entrega de tudo o que foi publicado e libera as threads
+        void close() throws InterruptedException;
+    }
+
+    interface DispatcherFactory {
+
+        Dispatcher create(List<DomainEventListener> listeners);
+    }
+
+    // na thread de quem publica; os ouvintes não são thread-safe, daí o lock
+    static class SyncDispatcher implements Dispatcher {
+
+        private final List<DomainEventListener> listeners;
+
+        SyncDispatcher(List<DomainEventListener> listeners) {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public synchronized void publish(DomainEvent.Type type, Long entityId, Long entityVersion) {
+            DomainEvent event = new DomainEvent();
+            event.set(type, entityId, entityVersion, "default", System.currentTimeMillis());
+            for (DomainEventListener listener : listeners) {
+                listener.onEvent(event, true);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // uma thread por ouvinte, como no barramento, mas com um objeto e uma tarefa por evento
+    static class ExecutorDispatcher implements Dispatcher {
+
+        private final List<DomainEventListener> listeners;
+        private final List<ExecutorService> executors = new ArrayList<>();
+
+        ExecutorDispatcher(List<DomainEventListener> listeners) {
+            this.listeners = listeners;
+            listeners.forEach(listener -> executors.add(Executors.newSingleThreadExecutor()));
+        }
+
+        @Override
+        public void publish(DomainEvent.Type type, Long entityId, Long entityVersion) {
+            DomainEvent event = new DomainEvent();
+            event.set(type, entityId, entityVersion, "default", System.currentTimeMillis());
+            for (int i = 0; i < listeners.size(); i++) {
+                DomainEventListener listener = listeners.get(i);
+                executors.get(i).execute(() -> listener.onEvent(event, true));
+            }
+        }
+
+        @Override
+        public void close() throws InterruptedException {
+            for (ExecutorService executor : executors) {
+                executor.shutdown();
+                executor.awaitTermination(5, TimeUnit.MINUTES);
+            }
+        }
+    }
+
+    static class BusDispatcher implements Dispatcher {
+
+        private final DomainEventBusImpl bus;
+
+        BusDispatcher(List<DomainEventListener> listeners) {
+            this.bus = new DomainEventBusImpl(listeners, 4096, 256);
+        }
+
+        @Override
+        public void publish(DomainEvent.Type type, Long entityId, Long entityVersion) {
+            bus.publish(type, entityId, entityVersion);
+        }
+
+        @Override
+        public void close() {
+            bus.awaitDelivery(TimeUnit.MINUTES.toMillis(5));
+            bus.shutdown();
+        }
+    }
+
+    static class ChecksumListener implements DomainEventListener {
+
+        volatile long sum;
+        private long partial;
+
+        @Override
+        public void onEvent(DomainEvent event, boolean endOfBatch) {
+            partial += event.getEntityId();
+            if (endOfBatch) {
+                sum = partial;
+            }
+        }
+    }
+
+    // trabalho de ~2 µs por evento, no lugar de montar e enfileirar uma notificação
+    static class SlowListener implements DomainEventListener {
+
+        volatile long count;
+        private long partial;
+
+        @Override
+        public void onEvent(DomainEvent event, boolean endOfBatch) {
+            long until = System.nanoTime() + SLOW_LISTENER_NANOS;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            partial++;
+            if (endOfBatch) {
+                count = partial;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.config.TenantContext;
+import br.com.pedrodavi.libraryapi.service.impl.DomainEventBusImpl;
+import br.com.pedrodavi.libraryapi.service.impl.DomainEventMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class DomainEventBusTest {
+
+    DomainEventBusImpl bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.shutdown();
+        }
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    @DisplayName("Deve entregar todos os eventos, em ordem e em lotes, a cada ouvinte")
+    void deliverInOrder() throws Exception {
+        RecordingListener first = new RecordingListener(0);
+        RecordingListener slow = new RecordingListener(1);
+        // buffer bem menor que o total: os produtores esperam o ouvinte lento liberar os slots
+        bus = new DomainEventBusImpl(Arrays.asList(first, slow), 8, 4);
+
+        ExecutorService producers = Executors.newFixedThreadPool(2);
+        for (int p = 0; p < 2; p++) {
+            long offset = p * 1_000L;
+            producers.execute(() -> {
+                for (long i = 0; i < 200; i++) {
+                    bus.publish(DomainEvent.Type.BOOK_UPDATED, offset + i, i);
+                }
+            });
+        }
+        producers.shutdown();
+        assertThat(producers.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        assertThat(bus.awaitDelivery(30_000)).isTrue();
+
+        for (RecordingListener listener : Arrays.asList(first, slow)) {
+            assertThat(listener.events).hasSize(400);
+            // a ordem de cada produtor é preservada
+            assertThat(listener.events).filteredOn(event -> event.getEntityId() < 1_000)
+                    .extracting(DomainEvent::getEntityVersion).isSorted();
+            assertThat(listener.events).filteredOn(event -> event.getEntityId() >= 1_000)
+                    .extracting(DomainEvent::getEntityVersion).isSorted();
+            assertThat(listener.batches).allMatch(size -> size >= 1 && size <= 4);
+        }
+        assertThat(slow.batches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(400);
+        assertThat(slow.batches).anyMatch(size -> size > 1);
+    }
+
+    @Test
+    @DisplayName("Deve publicar somente depois do commit")
+    void publishAfterCommit() {
+        RecordingListener listener = new RecordingListener(0);
+        bus = new DomainEventBusImpl(List.of(listener), 16, 16);
+
+        TransactionSynchronizationManager.initSynchronization();
+        bus.publish(DomainEvent.Type.LOAN_CREATED, 1L, 0L);
+        bus.publish(DomainEvent.Type.LOAN_RETURNED, 1L, 1L);
+        assertThat(bus.awaitDelivery(1_000)).isTrue();
+        assertThat(listener.events).isEmpty();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(bus.awaitDelivery(5_000)).isTrue();
+        assertThat(listener.events).extracting(DomainEvent::getType)
+                .containsExactly(DomainEvent.Type.LOAN_CREATED, DomainEvent.Type.LOAN_RETURNED);
+    }
+
+    @Test
+    @DisplayName("Deve descartar os eventos de uma transação desfeita")
+    void discardOnRollback() {
+        RecordingListener listener = new RecordingListener(0);
+        bus = new DomainEventBusImpl(List.of(listener), 16, 16);
+
+        TransactionSynchronizationManager.initSynchronization();
+        bus.publish(DomainEvent.Type.BOOK_CREATED, 1L, 0L);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertThat(bus.awaitDelivery(1_000)).isTrue();
+        assertThat(listener.events).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve executar o ouvinte no tenant de quem publicou e seguir depois de um erro")
+    void listenerTenantAndFailure() {
+        List<String> tenants = Collections.synchronizedList(new ArrayList<>());
+        DomainEventListener failing = (event, endOfBatch) -> {
+            tenants.add(TenantContext.getTenantId());
+            if (event.getEntityId() == 1L) {
+                throw new IllegalStateException("falha no ouvinte");
+            }
+        };
+        DomainEventMetrics metrics = new DomainEventMetrics();
+        bus = new DomainEventBusImpl(Arrays.asList(failing, metrics), 16, 16);
+
+        TenantContext.runAs("biblioteca-a", () -> bus.publish(DomainEvent.Type.BOOK_CREATED, 1L, 0L));
+        bus.publish(DomainEvent.Type.BOOK_DELETED, 2L, 0L);
+
+        assertThat(bus.awaitDelivery(5_000)).isTrue();
+        assertThat(tenants).containsExactly("biblioteca-a", TenantContext.DEFAULT_TENANT);
+        assertThat(metrics.getCount(DomainEvent.Type.BOOK_CREATED)).isEqualTo(1);
+        assertThat(metrics.getCount(DomainEvent.Type.BOOK_DELETED)).isEqualTo(1);
+    }
+
+    // guarda cópias: os slots do buffer são reaproveitados
+    static class RecordingListener implements DomainEventListener {
+
+        final List<DomainEvent> events = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        final long delayMillis;
+        int batchSize;
+
+        RecordingListener(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void onEvent(DomainEvent event, boolean endOfBatch) {
+            events.add(event.copy());
+            batchSize++;
+            if (endOfBatch) {
+                batches.add(batchSize);
+                batchSize = 0;
+                sleep();
+            }
+        }
+
+        private void sleep() {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static br.com.pedrodavi.libraryapi.service.EmailServiceTest.createLateLoan;
+import static br.com.pedrodavi.libraryapi.service.EmailServiceTest.createService;
+
+@Tag("benchmark")
+class EmailServiceBenchmark {
+
+    static final int CUSTOMERS = 2_000;
+    static final int LOANS_PER_CUSTOMER = 2;
+
+    @Test
+    @DisplayName("Vazão do envio de avisos de atraso por tamanho de lote")
+    void lateLoanMailThroughput() throws Exception {
+        List<Loan> loans = new ArrayList<>();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            for (int l = 0; l < LOANS_PER_CUSTOMER; l++) {
+                loans.add(createLateLoan("Cliente " + c, "cliente" + c + "@email.com",
+                        String.valueOf(c * LOANS_PER_CUSTOMER + l + 1), 5 + l));
+            }
+        }
+
+        for (int chunkSize : new int[]{ 1, 10, 50, 200 }) {
+            try (SmtpStandIn smtp = new SmtpStandIn()) {
+                EmailService service = createService(smtp.getPort(), chunkSize);
+                long start = System.nanoTime();
+                service.sendLateLoanMails("Devolva o livro.", loans);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("chunk=%4d mails=%d connections=%d time=%.2fs throughput=%.0f mails/s%n",
+                        chunkSize, smtp.getMessages().size(), smtp.getConnections(), seconds,
+                        smtp.getMessages().size() / seconds);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.service.impl.EmailServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailServiceTest {
+
+    SmtpStandIn smtp;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        smtp = new SmtpStandIn();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        smtp.close();
+    }
+
+    static EmailService createService(int port, int chunkSize) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(port);
+        return new EmailServiceImpl(sender, "libraryapi@libraryapi.com",
+                "Olá {customer},\n\n{message}\n\n{books}",
+                "- {title} (ISBN {isbn}): {days} dia(s) em atraso\n", chunkSize);
+    }
+
+    static Loan createLateLoan(String customer, String email, String isbn, int daysAgo) {
+        Book book = Book.builder().id(Long.valueOf(isbn)).isbn(isbn).title("Livro " + isbn).build();
+        return Loan.builder().customer(customer).email(email).book(book)
+                .loanDate(LocalDate.now().minusDays(daysAgo)).build();
+    }
+
+    @Test
+    @DisplayName("Deve enviar um email por cliente com os livros atrasados dele")
+    void sendOneMailPerCustomer() {
+        List<Loan> loans = Arrays.asList(
+                createLateLoan("Pedro", "pedro@email.com", "001", 10),
+                createLateLoan("Pedro", "PEDRO@email.com ", "002", 5),
+                createLateLoan("Maria", "maria@email.com", "003", 6),
+                createLateLoan("Sem Email", null, "004", 6));
+
+        createService(smtp.getPort(), 50).sendLateLoanMails("Devolva o livro.", loans);
+
+        assertThat(smtp.getMessages()).hasSize(2);
+        assertThat(smtp.getRecipients()).containsExactlyInAnyOrder("<pedro@email.com>", "<maria@email.com>");
+        assertThat(smtp.getConnections()).isEqualTo(1);
+
+        String pedroMail = smtp.getMessages().stream().filter(m -> m.contains("To: pedro@email.com")).findFirst().get();
+        assertThat(pedroMail).doesNotContain("maria@email.com");
+        assertThat(pedroMail).contains("Livro 001 (ISBN 001): 6 dia(s) em atraso");
+        assertThat(pedroMail).contains("Livro 002 (ISBN 002): 1 dia(s) em atraso");
+    }
+
+    @Test
+    @DisplayName("Deve enviar os emails em lotes, um por conexão")
+    void sendMailsInChunks() {
+        List<Loan> loans = Arrays.asList(
+                createLateLoan("A", "a@email.com", "001", 5),
+                createLateLoan("B", "b@email.com", "002", 5),
+                createLateLoan("C", "c@email.com", "003", 5));
+
+        createService(smtp.getPort(), 2).sendLateLoanMails("Devolva o livro.", loans);
+
+        assertThat(smtp.getMessages()).hasSize(3);
+        assertThat(smtp.getConnections()).isEqualTo(2);
+    }
+
+}
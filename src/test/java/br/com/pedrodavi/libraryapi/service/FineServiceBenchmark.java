@@ -0,0 +1,68 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.impl.FineServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tempo do cálculo em lote das multas com um núcleo e com o pool comum do fork-join, sobre
+ * empréstimos vencidos já carregados (o repositório é simulado, a consulta não entra na conta).
+ */
+@Tag("benchmark")
+class FineServiceBenchmark {
+
+    static final int CUSTOMERS = 200_000;
+    static final int LOANS_PER_CUSTOMER = 10;
+    static final int RUNS = 10;
+
+    @Test
+    @DisplayName("Tempo do cálculo das multas com um núcleo e em paralelo")
+    void recomputeFines() {
+        List<Object[]> rows = new ArrayList<>(CUSTOMERS * LOANS_PER_CUSTOMER);
+        LocalDate today = LocalDate.now();
+        for (int c = 0; c < CUSTOMERS; c++) {
+            String email = String.format("cliente%06d@email.com", c);
+            for (int i = 0; i < LOANS_PER_CUSTOMER; i++) {
+                rows.add(new Object[] { today.minusDays(5 + (c + i) % 60), email });
+            }
+        }
+        LoanRepository repository = mock(LoanRepository.class);
+        when(repository.findOverdueLoanDates(any(LocalDate.class))).thenReturn(rows);
+
+        FineServiceImpl sequential = new FineServiceImpl(repository, Tenants.single(), BigDecimal.ONE, 1);
+        FineServiceImpl parallel = new FineServiceImpl(repository, Tenants.single(), BigDecimal.ONE, 0);
+        try {
+            for (int round = 0; round < 2; round++) { // a primeira rodada aquece o JIT
+                double sequentialMillis = time(sequential);
+                double parallelMillis = time(parallel);
+                System.out.printf("rodada %d (%d empréstimos, %d clientes): um núcleo %.1f ms | fork-join (%d núcleos) %.1f ms%n",
+                        round, rows.size(), CUSTOMERS, sequentialMillis, Runtime.getRuntime().availableProcessors(), parallelMillis);
+            }
+            assertThat(parallel.getBalance("cliente000123@email.com").getBalance())
+                    .isEqualByComparingTo(sequential.getBalance("cliente000123@email.com").getBalance());
+        } finally {
+            sequential.shutdown();
+        }
+    }
+
+    private double time(FineService service) {
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            service.recompute();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+}
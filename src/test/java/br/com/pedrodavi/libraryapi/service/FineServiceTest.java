@@ -0,0 +1,103 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.CustomerBalanceDTO;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.impl.FineServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class FineServiceTest {
+
+    FineService service;
+
+    @MockBean
+    LoanRepository repository;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new FineServiceImpl(repository, Tenants.single(), new BigDecimal("1.50"), 0);
+    }
+
+    // prazo de 4 dias: emprestado há 4 + lateDays dias
+    private Object[] overdueLoan(String email, int lateDays) {
+        return new Object[] { LocalDate.now().minusDays(4 + lateDays), email };
+    }
+
+    @Test
+    @DisplayName("Deve somar as multas dos empréstimos em aberto de cada cliente")
+    void getBalance(){
+        when(repository.findOverdueLoanDates(LocalDate.now().minusDays(4))).thenReturn(Arrays.asList(
+                overdueLoan("maria@email.com", 1),
+                overdueLoan("pedro@email.com", 3),
+                overdueLoan("pedro@email.com", 2)));
+
+        service.recompute();
+        CustomerBalanceDTO pedro = service.getBalance("Pedro@Email.com");
+        CustomerBalanceDTO maria = service.getBalance("maria@email.com");
+        CustomerBalanceDTO semAtraso = service.getBalance("joao@email.com");
+
+        assertThat(pedro.getBalance()).isEqualByComparingTo("7.50");
+        assertThat(pedro.getOverdueLoans()).isEqualTo(2);
+        assertThat(pedro.getEmail()).isEqualTo("Pedro@Email.com");
+        assertThat(maria.getBalance()).isEqualByComparingTo("1.50");
+        assertThat(semAtraso.getBalance()).isEqualByComparingTo("0");
+        assertThat(semAtraso.getOverdueLoans()).isZero();
+        assertThat(pedro.getComputedAt()).isNotNull();
+        verify(repository, times(1)).findOverdueLoanDates(any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Deve calcular no primeiro acesso e servir o resultado até o próximo cálculo")
+    void getBalanceBeforeRecompute(){
+        when(repository.findOverdueLoanDates(any(LocalDate.class)))
+                .thenReturn(List.<Object[]>of(overdueLoan("pedro@email.com", 2)))
+                .thenReturn(List.<Object[]>of(overdueLoan("pedro@email.com", 5)));
+
+        assertThat(service.getBalance("pedro@email.com").getBalance()).isEqualByComparingTo("3.00");
+        assertThat(service.getBalance("pedro@email.com").getBalance()).isEqualByComparingTo("3.00");
+
+        service.recompute();
+
+        assertThat(service.getBalance("pedro@email.com").getBalance()).isEqualByComparingTo("7.50");
+        verify(repository, times(2)).findOverdueLoanDates(any(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Deve dividir o cálculo entre tarefas sem misturar os clientes")
+    void recomputeInParallel(){
+        List<Object[]> rows = new ArrayList<>();
+        for (int c = 0; c < 3_000; c++) {
+            for (int i = 1; i <= 10; i++) {
+                rows.add(overdueLoan(String.format("cliente%04d@email.com", c), i + c % 7));
+            }
+        }
+        when(repository.findOverdueLoanDates(any(LocalDate.class))).thenReturn(rows);
+
+        service.recompute();
+
+        for (int c = 0; c < 3_000; c += 499) {
+            // 10 empréstimos com 1..10 dias de atraso, mais c % 7 dias em cada um
+            long lateDays = 55 + 10L * (c % 7);
+            CustomerBalanceDTO balance = service.getBalance(String.format("cliente%04d@email.com", c));
+            assertThat(balance.getBalance()).isEqualByComparingTo(BigDecimal.valueOf(lateDays * 150, 2));
+            assertThat(balance.getOverdueLoans()).isEqualTo(10);
+        }
+    }
+}
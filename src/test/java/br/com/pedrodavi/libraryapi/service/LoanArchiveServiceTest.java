@@ -0,0 +1,81 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.entity.LoanHistory;
+import br.com.pedrodavi.libraryapi.model.repository.LoanHistoryRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.impl.LoanArchiveServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest
+class LoanArchiveServiceTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    LoanRepository repository;
+
+    @Autowired
+    LoanHistoryRepository historyRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    LoanArchiveService service;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new LoanArchiveServiceImpl(repository, historyRepository, transactionManager, 90, 2);
+    }
+
+    private Loan persistLoan(Book book, LocalDate loanDate, Boolean returned) {
+        Loan loan = Loan.builder().book(book).customer("Pedro").email("pedro@email.com")
+                .loanDate(loanDate).returned(returned).build();
+        return entityManager.persist(loan);
+    }
+
+    @Test
+    @DisplayName("Deve arquivar somente empréstimos devolvidos mais antigos que o limite")
+    void archiveReturnedLoans(){
+        Book book = entityManager.persist(Book.builder().title("Livro").author("Pedro").isbn("001").build());
+        LocalDate old = LocalDate.of(2020, 3, 15);
+        Loan oldReturned1 = persistLoan(book, old, true);
+        Loan oldReturned2 = persistLoan(book, old, true);
+        Loan oldReturned3 = persistLoan(book, old, true);
+        Loan oldOpen = persistLoan(book, old, null);
+        Loan recentReturned = persistLoan(book, LocalDate.now(), true);
+        entityManager.flush();
+
+        int archived = service.archiveReturnedLoans();
+        entityManager.clear();
+
+        assertThat(archived).isEqualTo(3);
+        assertThat(repository.findAll()).extracting(Loan::getId)
+                .containsExactlyInAnyOrder(oldOpen.getId(), recentReturned.getId());
+        assertThat(historyRepository.findAll()).extracting(LoanHistory::getId)
+                .containsExactlyInAnyOrder(oldReturned1.getId(), oldReturned2.getId(), oldReturned3.getId());
+
+        LoanHistory history = historyRepository.findById(oldReturned1.getId()).get();
+        assertThat(history.getLoanMonth()).isEqualTo(202003);
+        assertThat(history.getBookId()).isEqualTo(book.getId());
+        assertThat(history.getEmail()).isEqualTo("pedro@email.com");
+    }
+
+}
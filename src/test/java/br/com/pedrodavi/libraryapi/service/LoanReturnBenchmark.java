@@ -0,0 +1,74 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Devolução de empréstimos pelo caminho antigo (getById + update, com merge) e pelo
+ * update condicional direto no banco.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class LoanReturnBenchmark {
+
+    static final int LOANS = 5_000;
+
+    @Autowired
+    LoanService loanService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    LoanRepository loanRepository;
+
+    @Test
+    @DisplayName("Vazão da devolução de empréstimos: load + save x update condicional")
+    void returnThroughput() {
+        for (int round = 0; round < 2; round++) { // a primeira rodada aquece o JIT
+            List<Loan> before = seed("B" + round);
+            long start = System.nanoTime();
+            for (Loan loan : before) {
+                Loan loaded = loanService.getById(loan.getId()).get();
+                loaded.setReturned(true);
+                loanService.update(loaded);
+            }
+            double beforeSeconds = (System.nanoTime() - start) / 1e9;
+
+            List<Loan> after = seed("A" + round);
+            start = System.nanoTime();
+            for (Loan loan : after) {
+                loanService.updateReturned(loan.getId(), true, loan.getVersion());
+            }
+            double afterSeconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("rodada %d: load+save %.0f devoluções/s | update condicional %.0f devoluções/s%n",
+                    round, LOANS / beforeSeconds, LOANS / afterSeconds);
+        }
+    }
+
+    private List<Loan> seed(String prefix) {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < LOANS; i++) {
+            books.add(Book.builder().isbn(prefix + "-" + i).title("Titulo " + i).author("Autor").build());
+        }
+        books = bookRepository.saveAll(books);
+        List<Loan> loans = new ArrayList<>();
+        for (Book book : books) {
+            loans.add(Loan.builder().book(book).customer("Cliente").loanDate(LocalDate.now()).build());
+        }
+        return loanRepository.saveAll(loans);
+    }
+
+}
@@ -1,20 +1,28 @@
 package br.com.pedrodavi.libraryapi.service;
 
+import br.com.pedrodavi.libraryapi.api.dto.CheckoutResultDTO;
 import br.com.pedrodavi.libraryapi.api.dto.LoanFilterDTO;
 import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import br.com.pedrodavi.libraryapi.exception.CheckoutException;
 import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.ChangeLog;
+import br.com.pedrodavi.libraryapi.model.entity.Customer;
 import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
 import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
 import br.com.pedrodavi.libraryapi.service.impl.LoanServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
@@ -22,6 +30,7 @@ import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
@@ -36,6 +45,27 @@ class LoanServiceTest {
     @MockBean
     LoanRepository repository;
 
+    @MockBean
+    LoanStatisticsService statisticsService;
+
+    @MockBean
+    CustomerService customerService;
+
+    @MockBean
+    ChangeFeedService changeFeedService;
+
+    @MockBean
+    ReservationService reservationService;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    BookViewService bookViewService;
+
+    @MockBean
+    DomainEventBus eventBus;
+
     public Loan createLoan() {
         Book book = Book.builder().id(1L).build();
         return Loan.builder().book(book).customer("Pedro")
@@ -44,7 +74,7 @@ class LoanServiceTest {
 
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, statisticsService, customerService, changeFeedService, reservationService, bookRepository, bookViewService, eventBus);
     }
 
     @Test
@@ -76,6 +106,38 @@ class LoanServiceTest {
         assertThat(loan.getBook()).isEqualTo(savedLoan.getBook());
         assertThat(loan.getCustomer()).isEqualTo(savedLoan.getCustomer());
         assertThat(loan.getLoanDate()).isEqualTo(savedLoan.getLoanDate());
+        verify(statisticsService).loanCreated(savedLoan);
+        verify(changeFeedService).record(ChangeLog.EntityType.LOAN, 1L, ChangeLog.Operation.CREATED, null);
+    }
+
+    @Test
+    @DisplayName("Deve vincular o cliente pelo email ao salvar um empréstimo")
+    void saveLoanWithCustomer() {
+        Loan savingLoan = createLoan();
+        savingLoan.setEmail("pedro@email.com");
+        Customer customer = Customer.builder().id(1L).name("Pedro").email("pedro@email.com").build();
+
+        when(repository.existsByBookAndNotReturned(savingLoan.getBook())).thenReturn(false);
+        when(customerService.getOrCreate("Pedro", "pedro@email.com")).thenReturn(customer);
+        when(repository.save(savingLoan)).thenReturn(savingLoan);
+
+        Loan loan = service.save(savingLoan);
+
+        assertThat(loan.getCustomerAccount()).isEqualTo(customer);
+    }
+
+    @Test
+    @DisplayName("Deve travar o livro antes de conferir se já está emprestado")
+    void saveLoanLocksBook() {
+        Loan savingLoan = createLoan();
+        when(repository.existsByBookAndNotReturned(savingLoan.getBook())).thenReturn(false);
+        when(repository.save(savingLoan)).thenReturn(savingLoan);
+
+        service.save(savingLoan);
+
+        InOrder inOrder = inOrder(bookRepository, repository);
+        inOrder.verify(bookRepository).findByIdForUpdate(savingLoan.getBook().getId());
+        inOrder.verify(repository).existsByBookAndNotReturned(savingLoan.getBook());
     }
 
     @Test
@@ -94,6 +156,53 @@ class LoanServiceTest {
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
         assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already loaned");
         verify(repository, never()).save(savingLoan);
+        verify(statisticsService, never()).loanCreated(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve emprestar todos os livros do checkout com um único insert")
+    void checkout() {
+        Book first = Book.builder().id(1L).isbn("001").build();
+        Book second = Book.builder().id(2L).isbn("002").build();
+        Customer customer = Customer.builder().id(3L).name("Pedro").email("pedro@email.com").build();
+        Loan firstLoan = Loan.builder().id(10L).book(first).version(0L).build();
+        Loan secondLoan = Loan.builder().id(11L).book(second).version(0L).build();
+
+        when(bookRepository.findByIsbnInForUpdate(Arrays.asList("001", "002"))).thenReturn(Arrays.asList(second, first));
+        when(repository.findNotReturnedBookIds(anyCollection())).thenReturn(List.of());
+        when(customerService.getOrCreate("Pedro", "pedro@email.com")).thenReturn(customer);
+        when(repository.findNotReturnedByBookIds(anyCollection())).thenReturn(Arrays.asList(secondLoan, firstLoan));
+
+        List<CheckoutResultDTO> results = service.checkout("Pedro", "pedro@email.com", Arrays.asList("001", "002", "001"));
+
+        assertThat(results).extracting(CheckoutResultDTO::getIsbn).containsExactly("001", "002");
+        assertThat(results).extracting(CheckoutResultDTO::getLoanId).containsExactly(10L, 11L);
+        assertThat(results).allMatch(result -> result.getStatus().equals(CheckoutResultDTO.LOANED));
+        verify(repository).insertLoans(eq("Pedro"), eq("pedro@email.com"), eq(3L), eq(LocalDate.now()), eq(Set.of(1L, 2L)));
+        verify(repository, never()).save(any(Loan.class));
+        verify(statisticsService).loanCreated(firstLoan);
+        verify(changeFeedService).record(ChangeLog.EntityType.LOAN, 11L, ChangeLog.Operation.CREATED, 0L);
+        verify(eventBus).publish(DomainEvent.Type.LOAN_CREATED, 10L, 0L);
+        verify(eventBus).publish(DomainEvent.Type.LOAN_CREATED, 11L, 0L);
+    }
+
+    @Test
+    @DisplayName("Deve recusar o checkout inteiro quando algum livro estiver indisponível")
+    void checkoutUnavailableBook() {
+        Book loaned = Book.builder().id(1L).isbn("001").build();
+        Book available = Book.builder().id(2L).isbn("002").build();
+
+        when(bookRepository.findByIsbnInForUpdate(anyCollection())).thenReturn(Arrays.asList(loaned, available));
+        when(repository.findNotReturnedBookIds(anyCollection())).thenReturn(List.of(1L));
+
+        Throwable exception = catchThrowable(() -> service.checkout("Pedro", "pedro@email.com", Arrays.asList("001", "002", "003")));
+
+        assertThat(exception).isInstanceOf(CheckoutException.class);
+        assertThat(((CheckoutException) exception).getResults())
+                .extracting(CheckoutResultDTO::getStatus)
+                .containsExactly(CheckoutResultDTO.ALREADY_LOANED, CheckoutResultDTO.ROLLED_BACK, CheckoutResultDTO.NOT_FOUND);
+        verify(customerService, never()).getOrCreate(anyString(), anyString());
+        verify(repository, never()).insertLoans(any(), any(), any(), any(), anyCollection());
     }
 
     @Test
@@ -122,6 +231,110 @@ class LoanServiceTest {
         Loan updatedLoan = service.update(loan);
         assertThat(updatedLoan.getReturned()).isTrue();
         verify(repository).save(loan);
+        verify(statisticsService).loanUpdated(loan);
+        verify(eventBus).publish(DomainEvent.Type.LOAN_RETURNED, 1L, loan.getVersion());
+    }
+
+    @Test
+    @DisplayName("Não deve publicar a devolução de novo ao atualizar um empréstimo já devolvido")
+    void updateReturnedLoanWithoutEvent(){
+        Loan loan = createLoan();
+        loan.setId(1L);
+        loan.setReturned(true);
+        when(repository.findReturnedById(1L)).thenReturn(true);
+        when(repository.save(loan)).thenReturn(loan);
+
+        service.update(loan);
+
+        verify(statisticsService).loanUpdated(loan);
+        verify(eventBus, never()).publish(eq(DomainEvent.Type.LOAN_RETURNED), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Deve devolver um empréstimo com update condicional")
+    void updateReturned(){
+        when(repository.updateReturned(1L, true, 3L)).thenReturn(1);
+
+        assertThat(service.updateReturned(1L, true, 3L)).isTrue();
+        verify(repository, never()).findById(anyLong());
+        verify(statisticsService).loanUpdated(any(Loan.class));
+        verify(eventBus).publish(DomainEvent.Type.LOAN_RETURNED, 1L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve informar a data do empréstimo às estatísticas ao desfazer a devolução")
+    void updateUnreturned(){
+        LocalDate loanDate = LocalDate.now().minusDays(3);
+        when(repository.updateReturned(1L, false, 3L)).thenReturn(1);
+        when(repository.findLoanDateById(1L)).thenReturn(loanDate);
+
+        assertThat(service.updateReturned(1L, false, 3L)).isTrue();
+
+        verify(statisticsService).loanUpdated(argThat(loan -> loan.getId().equals(1L)
+                && Boolean.FALSE.equals(loan.getReturned()) && loanDate.equals(loan.getLoanDate())));
+    }
+
+    @Test
+    @DisplayName("Deve emprestar o livro devolvido ao primeiro da fila de reservas")
+    void updateReturnedLoansToNextReservation(){
+        Book book = Book.builder().id(1L).build();
+        Reservation reservation = Reservation.builder().id(5L).book(book).customer("Maria").email("maria@email.com").build();
+        when(repository.updateReturned(1L, true, 3L)).thenReturn(1);
+        when(repository.findBookIdById(1L)).thenReturn(1L);
+        when(reservationService.pollNext(1L)).thenReturn(Optional.of(reservation));
+        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
+        when(repository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(service.updateReturned(1L, true, 3L)).isTrue();
+
+        verify(repository).save(argThat(loan -> loan.getBook() == book && loan.getCustomer().equals("Maria")
+                && loan.getEmail().equals("maria@email.com") && loan.getLoanDate().equals(LocalDate.now())));
+        verify(statisticsService).loanCreated(any(Loan.class));
+        verify(bookViewService).loanReturned(1L, 1L);
+        verify(bookViewService).loansCreated("Maria", LocalDate.now(), List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Deve aceitar a devolução repetida sem emprestar de novo ao próximo da fila")
+    void updateReturnedTwiceWithQueuedReservations(){
+        Book book = Book.builder().id(1L).build();
+        Reservation first = Reservation.builder().id(5L).book(book).customer("Maria").email("maria@email.com").build();
+        Reservation second = Reservation.builder().id(6L).book(book).customer("João").email("joao@email.com").build();
+        when(repository.updateReturned(1L, true)).thenReturn(1, 0);
+        when(repository.findById(1L)).thenReturn(Optional.of(Loan.builder().id(1L).returned(true).build()));
+        when(repository.findBookIdById(1L)).thenReturn(1L);
+        when(reservationService.pollNext(1L)).thenReturn(Optional.of(first), Optional.of(second));
+        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
+        when(repository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertThat(service.updateReturned(1L, true, null)).isTrue();
+        assertThat(service.updateReturned(1L, true, null)).isTrue();
+
+        verify(reservationService, times(1)).pollNext(1L);
+        verify(repository, times(1)).save(argThat(loan -> loan.getCustomer().equals("Maria")));
+        verify(repository, never()).save(argThat(loan -> loan.getCustomer().equals("João")));
+        verify(bookViewService, times(1)).loanReturned(1L, 1L);
+        verify(eventBus, times(1)).publish(DomainEvent.Type.LOAN_RETURNED, 1L, null);
+        verify(changeFeedService, times(1)).record(ChangeLog.EntityType.LOAN, 1L, ChangeLog.Operation.UPDATED, null);
+    }
+
+    @Test
+    @DisplayName("Deve lançar conflito ao devolver empréstimo com versão desatualizada")
+    void updateReturnedConflict(){
+        when(repository.updateReturned(1L, true, 3L)).thenReturn(0);
+        when(repository.findById(1L)).thenReturn(Optional.of(Loan.builder().id(1L).returned(false).version(4L).build()));
+
+        Throwable exception = catchThrowable(() -> service.updateReturned(1L, true, 3L));
+        assertThat(exception).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        verify(statisticsService, never()).loanUpdated(any(Loan.class));
+    }
+
+    @Test
+    @DisplayName("Deve retornar falso ao devolver empréstimo inexistente")
+    void updateReturnedNotFound(){
+        when(repository.updateReturned(1L, true)).thenReturn(0);
+
+        assertThat(service.updateReturned(1L, true, null)).isFalse();
     }
 
     @Test
@@ -0,0 +1,159 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.api.dto.LoanStatisticsDTO;
+import br.com.pedrodavi.libraryapi.api.dto.TopBookDTO;
+import br.com.pedrodavi.libraryapi.config.Tenants;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Loan;
+import br.com.pedrodavi.libraryapi.model.repository.LoanHistoryRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.service.impl.LoanStatisticsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class LoanStatisticsServiceTest {
+
+    LoanStatisticsService service;
+
+    @MockBean
+    LoanRepository repository;
+
+    @MockBean
+    LoanHistoryRepository historyRepository;
+
+    @BeforeEach
+    public void setUp(){
+        this.service = new LoanStatisticsServiceImpl(repository, historyRepository, 30, 2, Tenants.single());
+    }
+
+    private Loan createLoan(Long id, Long bookId, LocalDate loanDate) {
+        Book book = Book.builder().id(bookId).isbn("00" + bookId).build();
+        return Loan.builder().id(id).book(book).customer("Pedro").loanDate(loanDate).build();
+    }
+
+    @Test
+    @DisplayName("Deve contabilizar empréstimos criados e devolvidos sem consultar o banco")
+    void countLoans(){
+        service.loanCreated(createLoan(1L, 1L, LocalDate.now()));
+        service.loanCreated(createLoan(2L, 1L, LocalDate.now().minusDays(10)));
+        service.loanCreated(createLoan(3L, 2L, LocalDate.now().minusDays(5)));
+
+        Loan returned = createLoan(3L, 2L, LocalDate.now().minusDays(5));
+        returned.setReturned(true);
+        service.loanUpdated(returned);
+        service.loanUpdated(returned); // devolução repetida não deve contar duas vezes
+
+        LoanStatisticsDTO statistics = service.getStatistics();
+
+        assertThat(statistics.getTotalLoans()).isEqualTo(3);
+        assertThat(statistics.getActiveLoans()).isEqualTo(2);
+        assertThat(statistics.getOverdueLoans()).isEqualTo(1);
+        assertThat(statistics.getLoansPerDay()).containsEntry(LocalDate.now(), 1L);
+        assertThat(statistics.getTopBooks()).hasSize(2);
+        assertThat(statistics.getTopBooks().get(0).getBookId()).isEqualTo(1L);
+        assertThat(statistics.getTopBooks().get(0).getLoans()).isEqualTo(2);
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Deve contabilizar só depois do commit e ignorar transações desfeitas")
+    void countAfterCommit(){
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.loanCreated(createLoan(1L, 1L, LocalDate.now()));
+            List<TransactionSynchronization> rolledBack = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            rolledBack.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+            assertThat(service.getStatistics().getTotalLoans()).isZero();
+
+            TransactionSynchronizationManager.initSynchronization();
+            service.loanCreated(createLoan(2L, 1L, LocalDate.now()));
+            assertThat(service.getStatistics().getTotalLoans()).isZero();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(service.getStatistics().getTotalLoans()).isEqualTo(1);
+        assertThat(service.getStatistics().getActiveLoans()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve voltar a contar como ativo o empréstimo com devolução desfeita")
+    void countUnreturnedLoan(){
+        Loan loan = createLoan(1L, 1L, LocalDate.now().minusDays(10));
+        service.loanCreated(loan);
+        service.loanUpdated(Loan.builder().id(1L).returned(true).build());
+        assertThat(service.getStatistics().getActiveLoans()).isZero();
+
+        service.loanUpdated(Loan.builder().id(1L).returned(false).loanDate(loan.getLoanDate()).build());
+
+        assertThat(service.getStatistics().getActiveLoans()).isEqualTo(1);
+        assertThat(service.getStatistics().getOverdueLoans()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve reconciliar as estatísticas com o banco")
+    void reconcile(){
+        LocalDate today = LocalDate.now();
+        when(repository.count()).thenReturn(3L);
+        when(historyRepository.count()).thenReturn(2L);
+        when(repository.countLoansPerDaySince(any(LocalDate.class)))
+                .thenReturn(Collections.singletonList(new Object[]{ today, 2L }));
+        when(repository.findNotReturnedLoanDates())
+                .thenReturn(List.of(new Object[]{ 1L, today }, new Object[]{ 2L, today.minusDays(7) }));
+        when(repository.countLoansPerBook(8))
+                .thenReturn(List.of(new Object[]{ 1L, "001", 5L }, new Object[]{ 2L, "002", 1L }));
+
+        service.loanCreated(createLoan(9L, 9L, today)); // descartado pela reconciliação
+        service.reconcile();
+
+        LoanStatisticsDTO statistics = service.getStatistics();
+
+        assertThat(statistics.getTotalLoans()).isEqualTo(5);
+        assertThat(statistics.getActiveLoans()).isEqualTo(2);
+        assertThat(statistics.getOverdueLoans()).isEqualTo(1);
+        assertThat(statistics.getLoansPerDay()).containsEntry(today, 2L);
+        assertThat(statistics.getTopBooks()).hasSize(2);
+        assertThat(statistics.getTopBooks()).extracting(TopBookDTO::getIsbn).containsExactly("001", "002");
+    }
+
+    @Test
+    @DisplayName("Deve carregar as contagens exatas dos livros mais emprestados com mais livros que a capacidade")
+    void reconcileTopBooksBeyondCapacity(){
+        // capacidade 8 (4 x top-books); a consulta já vem limitada, mas a carga não pode herdar contagens
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{ 1L, "001", 50L });
+        rows.add(new Object[]{ 2L, "002", 40L });
+        for (long id = 3; id <= 12; id++) {
+            rows.add(new Object[]{ id, "00" + id, 1L });
+        }
+        when(repository.countLoansPerBook(8)).thenReturn(rows);
+
+        service.reconcile();
+        service.loanCreated(createLoan(20L, 2L, LocalDate.now()));
+
+        assertThat(service.getStatistics().getTopBooks())
+                .extracting(TopBookDTO::getBookId, TopBookDTO::getLoans)
+                .containsExactly(tuple(1L, 50L), tuple(2L, 41L));
+    }
+
+}
@@ -0,0 +1,97 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.exception.BusinessException;
+import br.com.pedrodavi.libraryapi.model.entity.Book;
+import br.com.pedrodavi.libraryapi.model.entity.Reservation;
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import br.com.pedrodavi.libraryapi.model.repository.LoanRepository;
+import br.com.pedrodavi.libraryapi.model.repository.ReservationRepository;
+import br.com.pedrodavi.libraryapi.service.impl.ReservationServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+class ReservationServiceTest {
+
+    ReservationService service;
+
+    @MockBean
+    ReservationRepository repository;
+
+    @MockBean
+    BookRepository bookRepository;
+
+    @MockBean
+    LoanRepository loanRepository;
+
+    Book book = Book.builder().id(1L).build();
+
+    @BeforeEach
+    public void setUp() {
+        this.service = new ReservationServiceImpl(repository, bookRepository, loanRepository);
+        when(bookRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(book));
+    }
+
+    private Reservation createReservation() {
+        return Reservation.builder().book(book).customer("Maria").email("maria@email.com").build();
+    }
+
+    @Test
+    @DisplayName("Deve reservar um livro emprestado")
+    void reserve() {
+        Reservation reservation = createReservation();
+        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(repository.save(reservation)).thenReturn(reservation);
+
+        service.reserve(reservation);
+
+        verify(bookRepository).findByIdForUpdate(1L);
+        verify(repository).save(reservation);
+        assertThat(reservation.getReservedAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao reservar livro que não está emprestado")
+    void reserveAvailableBook() {
+        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(false);
+
+        Throwable exception = catchThrowable(() -> service.reserve(createReservation()));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book not loaned");
+        verify(repository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro ao reservar de novo o mesmo livro para o mesmo cliente")
+    void reserveTwice() {
+        when(loanRepository.existsByBookAndNotReturned(book)).thenReturn(true);
+        when(repository.existsByBookAndEmailIgnoreCase(book, "maria@email.com")).thenReturn(true);
+
+        Throwable exception = catchThrowable(() -> service.reserve(createReservation()));
+
+        assertThat(exception).isInstanceOf(BusinessException.class).hasMessage("Book already reserved for customer");
+        verify(repository, never()).save(any(Reservation.class));
+    }
+
+    @Test
+    @DisplayName("Deve retirar da fila a primeira reserva do livro")
+    void pollNext() {
+        Reservation reservation = createReservation();
+        when(repository.findFirstByBookOrderById(book)).thenReturn(Optional.of(reservation));
+
+        assertThat(service.pollNext(1L)).contains(reservation);
+        verify(repository).delete(reservation);
+    }
+}
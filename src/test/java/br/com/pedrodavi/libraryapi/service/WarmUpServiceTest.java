@@ -0,0 +1,87 @@
+package br.com.pedrodavi.libraryapi.service;
+
+import br.com.pedrodavi.libraryapi.model.repository.BookRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "application.warmup.iterations=5")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WarmUpServiceTest {
+
+    @Autowired
+    WarmUpService warmUpService;
+
+    @Autowired
+    BookRepository bookRepository;
+
+    @Autowired
+    ApplicationAvailability availability;
+
+    @Autowired
+    ReadinessProbe readinessProbe;
+
+    @Autowired
+    MockMvc mvc;
+
+    // guarda, a cada mudança de readiness, se o aquecimento já tinha terminado
+    @TestConfiguration
+    static class ReadinessProbe {
+
+        final List<Optional<WarmUpReport>> reportsWhenAccepting = new ArrayList<>();
+
+        @Autowired
+        WarmUpService warmUpService;
+
+        @EventListener
+        public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                reportsWhenAccepting.add(warmUpService.getLastReport());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Deve ficar pronto só depois do aquecimento")
+    void readyAfterWarmUp() throws Exception {
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(readinessProbe.reportsWhenAccepting).hasSize(1);
+        assertThat(readinessProbe.reportsWhenAccepting.get(0)).hasValueSatisfying(report ->
+                assertThat(report.getIterations()).isEqualTo(5));
+
+        mvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("status").value("UP"));
+    }
+
+    @Test
+    @DisplayName("Deve desfazer os livros sintéticos do aquecimento")
+    void warmUpRollsBackSyntheticData() {
+        WarmUpReport report = warmUpService.warmUp(1000, Duration.ZERO);
+
+        // a duração limita as iterações, mas ao menos uma sempre roda
+        assertThat(report.getIterations()).isEqualTo(1);
+        assertThat(report.getFirstIterationMicros()).isPositive();
+        assertThat(bookRepository.findByIsbn("WARMUP-0")).isEmpty();
+    }
+}